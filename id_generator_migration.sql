@@ -0,0 +1,18 @@
+-- =========================
+-- Migration: IDENTITY -> pooled table id generation
+-- =========================
+-- Recipe and Ingredient ids are handed out in blocks of 50 from ID_GENERATOR
+-- so Hibernate can batch inserts. Run once against an existing database
+-- before deploying; the AUTO_INCREMENT columns can stay as they are.
+
+CREATE TABLE IF NOT EXISTS ID_GENERATOR (
+    SEQUENCE_NAME VARCHAR(255) NOT NULL PRIMARY KEY,
+    NEXT_VAL BIGINT
+);
+
+-- The stored value is the upper bound of the next block, so it is seeded
+-- with MAX(ID) + 50 + 1 to make the first block start after the existing ids.
+INSERT INTO ID_GENERATOR (SEQUENCE_NAME, NEXT_VAL)
+SELECT 'recipes', COALESCE(MAX(ID), 0) + 51 FROM RECIPES;
+INSERT INTO ID_GENERATOR (SEQUENCE_NAME, NEXT_VAL)
+SELECT 'ingredients', COALESCE(MAX(ID), 0) + 51 FROM INGREDIENTS;
@@ -1,10 +1,13 @@
 CREATE TABLE INGREDIENTS (
     ID INT AUTO_INCREMENT PRIMARY KEY,
     NAME VARCHAR(30) NOT NULL UNIQUE,
+    NORMALIZED_NAME VARCHAR(30) NOT NULL,
     CREATED_AT DATETIME(6),
     UPDATED_AT DATETIME(6)
 );
 
+CREATE INDEX IDX_INGREDIENTS_NORMALIZED_NAME ON INGREDIENTS (NORMALIZED_NAME);
+
 CREATE TABLE RECIPES (
     ID INT AUTO_INCREMENT PRIMARY KEY,
     NAME VARCHAR(30) NOT NULL UNIQUE,
@@ -15,6 +18,13 @@ CREATE TABLE RECIPES (
     UPDATED_AT DATETIME(6)
 );
 
+CREATE INDEX IDX_RECIPES_TYPE_SERVINGS_NAME ON RECIPES (TYPE, NUMBER_OF_SERVINGS, NAME);
+
+CREATE TABLE ID_GENERATOR (
+    SEQUENCE_NAME VARCHAR(255) NOT NULL PRIMARY KEY,
+    NEXT_VAL BIGINT
+);
+
 CREATE TABLE RECIPE_INGREDIENT (
     INGREDIENT_ID INT NOT NULL,
     RECIPE_ID INT NOT NULL,
@@ -23,17 +33,20 @@ CREATE TABLE RECIPE_INGREDIENT (
     CONSTRAINT FK_RECIPE_INGREDIENT_RECIPE FOREIGN KEY (RECIPE_ID) REFERENCES RECIPES (ID)
 );
 
+-- The primary key already leads with INGREDIENT_ID; this one serves the recipe side of the join.
+CREATE INDEX IDX_RECIPE_INGREDIENT_RECIPE_INGREDIENT ON RECIPE_INGREDIENT (RECIPE_ID, INGREDIENT_ID);
+
 -- =========================
 -- INGREDIENTS
 -- =========================
-INSERT INTO INGREDIENTS (ID, CREATED_AT, UPDATED_AT, NAME) VALUES
-(1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'POTATO'),
-(2, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'TOMATO'),
-(3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'ONION'),
-(4, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'SALMON'),
-(5, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'CHEESE'),
-(6, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'GARLIC'),
-(7, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'CHICKEN');
+INSERT INTO INGREDIENTS (ID, CREATED_AT, UPDATED_AT, NAME, NORMALIZED_NAME) VALUES
+(1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'POTATO', 'potato'),
+(2, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'TOMATO', 'tomato'),
+(3, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'ONION', 'onion'),
+(4, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'SALMON', 'salmon'),
+(5, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'CHEESE', 'cheese'),
+(6, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'GARLIC', 'garlic'),
+(7, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'CHICKEN', 'chicken');
 
 -- =========================
 -- RECIPES
@@ -99,4 +112,14 @@ INSERT INTO RECIPE_INGREDIENT VALUES (6, 6);
 
 -- TOMATO SOUP
 INSERT INTO RECIPE_INGREDIENT VALUES (2, 7);
-INSERT INTO RECIPE_INGREDIENT VALUES (6, 7);
\ No newline at end of file
+INSERT INTO RECIPE_INGREDIENT VALUES (6, 7);
+
+-- =========================
+-- ID_GENERATOR (pooled id blocks of 50)
+-- =========================
+-- The stored value is the upper bound of the next block, so it is seeded
+-- with MAX(ID) + 50 + 1 to make the first block start after the existing ids.
+INSERT INTO ID_GENERATOR (SEQUENCE_NAME, NEXT_VAL)
+SELECT 'recipes', COALESCE(MAX(ID), 0) + 51 FROM RECIPES;
+INSERT INTO ID_GENERATOR (SEQUENCE_NAME, NEXT_VAL)
+SELECT 'ingredients', COALESCE(MAX(ID), 0) + 51 FROM INGREDIENTS;
@@ -0,0 +1,20 @@
+-- =========================
+-- Migration: search predicate indexes
+-- =========================
+-- Ingredient names are matched case-insensitively by the search. The lower
+-- case copy in NORMALIZED_NAME is compared instead of LOWER(NAME), so the
+-- lookup can use an index. Run once against an existing database before
+-- deploying.
+
+ALTER TABLE INGREDIENTS ADD COLUMN NORMALIZED_NAME VARCHAR(30);
+UPDATE INGREDIENTS SET NORMALIZED_NAME = LOWER(NAME);
+ALTER TABLE INGREDIENTS MODIFY NORMALIZED_NAME VARCHAR(30) NOT NULL;
+
+CREATE INDEX IDX_INGREDIENTS_NORMALIZED_NAME ON INGREDIENTS (NORMALIZED_NAME);
+
+-- Equality on TYPE and NUMBER_OF_SERVINGS, then ordered by NAME.
+CREATE INDEX IDX_RECIPES_TYPE_SERVINGS_NAME ON RECIPES (TYPE, NUMBER_OF_SERVINGS, NAME);
+
+-- The primary key (INGREDIENT_ID, RECIPE_ID) serves ingredient-to-recipe
+-- lookups; this one serves recipe-to-ingredient lookups.
+CREATE INDEX IDX_RECIPE_INGREDIENT_RECIPE_INGREDIENT ON RECIPE_INGREDIENT (RECIPE_ID, INGREDIENT_ID);
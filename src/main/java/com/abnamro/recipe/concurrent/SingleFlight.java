@@ -0,0 +1,89 @@
+package com.abnamro.recipe.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Collapses identical concurrent calls into one execution.
+ * <p>
+ * The first caller of a key runs the call; callers arriving with the same key while it is in flight wait
+ * for its result, or its exception, instead of running their own. A follower that waits longer than the
+ * timeout gives up on the leader and runs the call itself. Nothing is remembered once a call completes.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+    private final Counter executed;
+    private final Counter collapsed;
+    private final Counter timedOut;
+
+    public SingleFlight(String operation, Duration waitTimeout, MeterRegistry meterRegistry) {
+        this.waitTimeout = waitTimeout;
+        this.executed = counter("recipe.reads.executed", operation, meterRegistry);
+        this.collapsed = counter("recipe.reads.collapsed", operation, meterRegistry);
+        this.timedOut = counter("recipe.reads.collapse.timeouts", operation, meterRegistry);
+    }
+
+    private static Counter counter(String name, String operation, MeterRegistry meterRegistry) {
+        return Counter.builder(name).tag("operation", operation).register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            collapsed.increment();
+            return await(leader, call);
+        }
+
+        executed.increment();
+        try {
+            V value = call.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(CompletableFuture<V> leader, Supplier<V> call) {
+        try {
+            return leader.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut.increment();
+            executed.increment();
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return the number of keys currently being executed
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
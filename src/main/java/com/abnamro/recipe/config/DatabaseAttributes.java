@@ -4,5 +4,31 @@ public class DatabaseAttributes {
     public static final String JOINED_TABLE_NAME = "recipeIngredients";
     public static final String INGREDIENT_KEY = "ingredient";
 
+    /**
+     * Table holding the next id block per entity. Works on both H2 and MySQL, unlike sequences.
+     */
+    public static final String ID_GENERATOR_TABLE = "id_generator";
+
+    /**
+     * Ids reserved per round trip to {@link #ID_GENERATOR_TABLE}; keep in line with hibernate.jdbc.batch_size.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Rows fetched per round trip while streaming the export. A query hint value, hence a string. MySQL only
+     * honours it with useCursorFetch=true on the connection URL.
+     */
+    public static final String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Second-level cache regions, created by {@link SecondLevelCacheConfig}.
+     */
+    public static final String INGREDIENT_CACHE_REGION = "ingredients";
+    public static final String RECIPE_INGREDIENTS_CACHE_REGION = "recipe-ingredients";
+
+    /**
+     * Recipe ingredient sets loaded per statement when they miss the second-level cache.
+     */
+    public static final int CACHE_MISS_BATCH_SIZE = 50;
 
 }
@@ -0,0 +1,84 @@
+package com.abnamro.recipe.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.abnamro.recipe.response.IngredientResponse;
+import com.abnamro.recipe.response.RecipeResponse;
+import com.abnamro.recipe.search.cache.SearchResultCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process caches of assembled responses, keyed by id.
+ * <p>
+ * Caffeine admits a new entry only when it is estimated to be requested more often than the entry it would
+ * evict (W-TinyLFU), so a burst of one-off lookups cannot flush the popular recipes. Hits, misses and
+ * evictions are published as {@code cache.*} metrics tagged with the cache name, plus a
+ * {@code cache.hit.ratio} gauge.
+ */
+@Configuration
+public class NearCacheConfig {
+    public static final String RECIPES = "recipes";
+    public static final String INGREDIENTS = "ingredients";
+    public static final String SEARCHES = "searches";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration expireAfterWrite;
+
+    public NearCacheConfig(MeterRegistry meterRegistry,
+                           @Value("${recipe.cache.expire-after-write:0s}") Duration expireAfterWrite) {
+        this.meterRegistry = meterRegistry;
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    @Bean
+    public Cache<Integer, RecipeResponse> recipeNearCache(
+            @Value("${recipe.cache.recipes.maximum-size:10000}") long maximumSize) {
+        return build(RECIPES, maximumSize);
+    }
+
+    @Bean
+    public Cache<Integer, IngredientResponse> ingredientNearCache(
+            @Value("${recipe.cache.ingredients.maximum-size:10000}") long maximumSize) {
+        return build(INGREDIENTS, maximumSize);
+    }
+
+    /**
+     * Pages of search result ids. Entries of past generations are unreachable, so they always expire after a
+     * while even when no general expiry is configured.
+     */
+    @Bean
+    public Cache<SearchResultCache.SearchKey, List<Integer>> searchResultNearCache(
+            @Value("${recipe.cache.searches.maximum-size:1000}") long maximumSize,
+            @Value("${recipe.cache.searches.expire-after-write:10m}") Duration searchesExpireAfterWrite) {
+        return build(SEARCHES, maximumSize, searchesExpireAfterWrite);
+    }
+
+    private <K, V> Cache<K, V> build(String name, long maximumSize) {
+        return build(name, maximumSize, expireAfterWrite);
+    }
+
+    private <K, V> Cache<K, V> build(String name, long maximumSize, Duration expireAfterWrite) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().maximumSize(maximumSize).recordStats();
+        if (!expireAfterWrite.isZero()) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        Cache<K, V> cache = builder.build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", name)
+                .description("Share of lookups served from the cache since startup")
+                .register(meterRegistry);
+        return cache;
+    }
+}
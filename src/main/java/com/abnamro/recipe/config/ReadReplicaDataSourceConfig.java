@@ -0,0 +1,45 @@
+package com.abnamro.recipe.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Adds a replica pool next to the primary one when {@code recipe.datasource.replica.jdbc-url} is set.
+ * The primary keeps its {@code spring.datasource.*} settings; the replica pool is configured with the Hikari
+ * properties under {@code recipe.datasource.replica}. Without a replica the default single pool is used.
+ * <p>
+ * Reads whose results fill the near-caches run through {@link ReadReplicaRoutingDataSource#onPrimary}, so they
+ * never cache what a lagging replica has not caught up with yet.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recipe.datasource.replica.jdbc-url")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("recipe.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primaryDataSource, replicaDataSource));
+    }
+}
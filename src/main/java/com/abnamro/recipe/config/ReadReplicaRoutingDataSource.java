@@ -0,0 +1,76 @@
+package com.abnamro.recipe.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replica and all others to the primary, unless the read
+ * runs inside {@link #onPrimary}. A replica that cannot hand out a connection is skipped and the read goes to
+ * the primary.
+ * <p>
+ * The transaction is only known to be read-only once it has started, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which fetches the connection at
+ * the first statement.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> false);
+
+    private final Logger logger = LoggerFactory.getLogger(ReadReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+
+    public ReadReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        setTargetDataSources(Map.<Object, Object>of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs the read on the primary even inside a read-only transaction, for reads that must not see a lagging
+     * replica, such as those filling a cache. A transaction keeps the connection of its first statement, so
+     * this only routes a read that issues the first statement of its transaction.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(true);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY_REQUIRED.set(previous);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !PRIMARY_REQUIRED.get()
+                ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() != Route.REPLICA) {
+            return primary.getConnection();
+        }
+        try {
+            return super.getConnection();
+        } catch (SQLException e) {
+            logger.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+            return primary.getConnection();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.abnamro.recipe.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Creates the Hibernate second-level cache regions in Caffeine's JCache provider, bounded by size and
+ * expiry. Active when {@code hibernate.cache.use_second_level_cache} is switched on, as in the prod profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheConfig {
+    private static final List<String> REGIONS = List.of(DatabaseAttributes.INGREDIENT_CACHE_REGION,
+            DatabaseAttributes.RECIPE_INGREDIENTS_CACHE_REGION);
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager(
+            @Value("${recipe.cache.hibernate.maximum-size:10000}") long maximumSize,
+            @Value("${recipe.cache.hibernate.expire-after-write:1h}") Duration expireAfterWrite) {
+        return properties -> {
+            CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                    .getCacheManager();
+            for (String region : REGIONS) {
+                if (cacheManager.getCache(region) == null) {
+                    cacheManager.createCache(region, configuration(maximumSize, expireAfterWrite));
+                }
+            }
+            properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> configuration(long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        if (!expireAfterWrite.isZero()) {
+            configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
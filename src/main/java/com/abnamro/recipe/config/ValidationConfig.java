@@ -17,6 +17,16 @@ public class ValidationConfig {
      */
     public static final int MAX_LENGTH_DEFAULT = 255;
 
+    /**
+     * Max number of items accepted by a bulk create request
+     */
+    public static final int MAX_BULK_SIZE = 1000;
+
+    /**
+     * Max number of similar recipes returned for one recipe
+     */
+    public static final int MAX_SIMILAR_RECIPES = 100;
+
     /**
      * Matches for free text fields in our case instructions
      */
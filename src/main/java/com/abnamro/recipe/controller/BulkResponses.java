@@ -0,0 +1,25 @@
+package com.abnamro.recipe.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.abnamro.recipe.response.BulkItemResponse;
+
+/**
+ * Shared response of the bulk create endpoints.
+ */
+final class BulkResponses {
+
+	private BulkResponses() {
+	}
+
+	/**
+	 * @return 201 when every item was created, otherwise 207 with the outcome of each item
+	 */
+	static ResponseEntity<List<BulkItemResponse>> of(List<BulkItemResponse> results) {
+		boolean allCreated = results.stream().allMatch(result -> result.getStatus() == BulkItemResponse.Status.CREATED);
+		return ResponseEntity.status(allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+	}
+}
@@ -7,8 +7,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.response.BulkItemResponse;
 import com.abnamro.recipe.response.CreateEntityResponse;
+import com.abnamro.recipe.response.CursorPageResponse;
 import com.abnamro.recipe.response.IngredientResponse;
 import com.abnamro.recipe.service.IngredientService;
 import com.abnamro.request.CreateIngredientRequest;
@@ -22,7 +23,6 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Tag(name = "IngredientController", description = "APIs for managing Create, update, delete, list ingredients")
 @RestController
@@ -49,15 +49,46 @@ public class IngredientController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(new CreateEntityResponse(id));
 	}
 
+	@Operation(summary = "Create several ingredients at once")
+	@ApiResponses({ @ApiResponse(responseCode = "201", description = "All ingredients created"),
+			@ApiResponse(responseCode = "207", description = "Some ingredients were rejected, see the result of each item"),
+			@ApiResponse(responseCode = "400", description = "Empty or too large batch") })
+	@PostMapping("/bulk")
+	public ResponseEntity<List<BulkItemResponse>> createIngredients(
+			@Parameter(description = "Properties of each ingredient", required = true) @RequestBody List<CreateIngredientRequest> requests) {
+		logger.info("Creating {} ingredients in bulk", requests.size());
+		return BulkResponses.of(ingredientService.createAll(requests));
+	}
+
 	@Operation(summary = "List all ingredients")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successful request") })
 	@GetMapping("/page/{page}/size/{size}")
 	public ResponseEntity<List<IngredientResponse>> getIngredientList(@PathVariable(name = "page") int page,
 			@PathVariable(name = "size") int size) {
 		logger.info("Getting the ingredients");
-		List<Ingredient> list = ingredientService.list(page, size);
-		List<IngredientResponse> response = list.stream().map(IngredientResponse::new).collect(Collectors.toList());
-		return ResponseEntity.ok(response);
+		return ResponseEntity.ok(ingredientService.list(page, size));
+	}
+
+	@Operation(summary = "List ingredients after the given cursor")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor") })
+	@GetMapping("/size/{size}")
+	public ResponseEntity<CursorPageResponse<IngredientResponse>> getIngredientListAfter(
+			@PathVariable(name = "size") int size,
+			@Parameter(description = "Cursor returned by the previous page") @RequestParam(name = "after", required = false) String after) {
+		logger.info("Getting the ingredients after cursor");
+		return ResponseEntity.ok(ingredientService.listAfter(after, size));
+	}
+
+	@Operation(summary = "Suggest ingredient names starting with the given prefix")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid limit") })
+	@GetMapping("/suggest")
+	public ResponseEntity<List<String>> suggestIngredients(
+			@Parameter(description = "Start of the name, ignoring case", required = true) @RequestParam(name = "prefix") String prefix,
+			@Parameter(description = "Maximum number of names") @RequestParam(name = "limit", defaultValue = "10") int limit) {
+		logger.info("Suggesting ingredient names for prefix {}", prefix);
+		return ResponseEntity.ok(ingredientService.suggestNames(prefix, limit));
 	}
 
 	@Operation(summary = "List one ingredient by its ID")
@@ -67,11 +98,7 @@ public class IngredientController {
 	public ResponseEntity<IngredientResponse> getIngredient(
 			@Parameter(description = "Ingredient ID", required = true) @PathVariable(name = "id") Integer id) {
 		logger.info("Getting the ingredient by its id. Id: {}", id);
-		Ingredient ingredient = ingredientService.findById(id);
-		if (ingredient == null) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-		}
-		return ResponseEntity.ok(new IngredientResponse(ingredient));
+		return ResponseEntity.ok(ingredientService.findById(id));
 	}
 
 	@Operation(summary = "Delete the ingredient")
@@ -1,19 +1,30 @@
 package com.abnamro.recipe.controller;
 
-import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.response.BulkItemResponse;
 import com.abnamro.recipe.response.CreateEntityResponse;
+import com.abnamro.recipe.response.CursorPageResponse;
 import com.abnamro.recipe.response.RecipeResponse;
 import com.abnamro.recipe.response.RecipeSearchResponse;
+import com.abnamro.recipe.response.SearchFacetsResponse;
+import com.abnamro.recipe.response.SimilarRecipeResponse;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
 import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.service.RecipeFacetService;
+import com.abnamro.recipe.service.RecipeReadCoalescer;
 import com.abnamro.recipe.service.RecipeService;
 import com.abnamro.request.CreateRecipeRequest;
+import com.abnamro.request.PantrySearchRequest;
+import com.abnamro.request.RecipeIngredientsRequest;
 import com.abnamro.request.UpdateRecipeRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
@@ -23,23 +34,39 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Tag(name = "Recipe Management", description = "APIs for managing and searching recipes")
 @RestController
 @RequestMapping(value = "api/v1/recipe")
 public class RecipeController {
+	/**
+	 * Response header describing the search plan, sent when the search asks to explain it.
+	 */
+	static final String SEARCH_PLAN_HEADER = "X-Search-Plan";
+
 	private final Logger logger = LoggerFactory.getLogger(RecipeController.class);
 
 	private final RecipeService recipeService;
+	private final RecipeReadCoalescer recipeReadCoalescer;
+	private final RecipeFacetService recipeFacetService;
+	private final ObjectMapper objectMapper;
 
 	@Autowired
-	public RecipeController(RecipeService recipeService) {
+	public RecipeController(RecipeService recipeService, RecipeReadCoalescer recipeReadCoalescer,
+			RecipeFacetService recipeFacetService, ObjectMapper objectMapper) {
 		this.recipeService = recipeService;
+		this.recipeReadCoalescer = recipeReadCoalescer;
+		this.recipeFacetService = recipeFacetService;
+		this.objectMapper = objectMapper;
 	}
 
 	@Operation(summary = "Create a recipe")
@@ -53,6 +80,17 @@ public class RecipeController {
 		return ResponseEntity.status(HttpStatus.CREATED).body(new CreateEntityResponse(id));
 	}
 
+	@Operation(summary = "Create several recipes at once")
+	@ApiResponses(value = { @ApiResponse(responseCode = "201", description = "All recipes created"),
+			@ApiResponse(responseCode = "207", description = "Some recipes were rejected, see the result of each item"),
+			@ApiResponse(responseCode = "400", description = "Empty or too large batch") })
+	@PostMapping("/bulk")
+	public ResponseEntity<List<BulkItemResponse>> createRecipes(
+			@RequestBody @Parameter(description = "Properties of each recipe", required = true) List<CreateRecipeRequest> requests) {
+		logger.info("Creating {} recipes in bulk", requests.size());
+		return BulkResponses.of(recipeService.createRecipes(requests));
+	}
+
 	@Operation(summary = "Update the recipe")
 	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Recipe updated"),
 			@ApiResponse(responseCode = "400", description = "Bad input") })
@@ -64,6 +102,32 @@ public class RecipeController {
 		return ResponseEntity.ok().build();
 	}
 
+	@Operation(summary = "Add ingredients to the recipe")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Ingredients added"),
+			@ApiResponse(responseCode = "400", description = "Bad input"),
+			@ApiResponse(responseCode = "404", description = "Recipe or ingredient not found by the given ID") })
+	@PostMapping("/{id}/ingredients")
+	public ResponseEntity<Void> addIngredients(
+			@PathVariable @Parameter(description = "Recipe ID", required = true) Integer id,
+			@Valid @RequestBody @Parameter(description = "Ingredients to add", required = true) RecipeIngredientsRequest request) {
+		logger.info("Adding ingredients to the recipe. Id: {}", id);
+		recipeService.addIngredients(id, request.getIngredientIds());
+		return ResponseEntity.ok().build();
+	}
+
+	@Operation(summary = "Remove ingredients from the recipe")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Ingredients removed"),
+			@ApiResponse(responseCode = "400", description = "Invalid input"),
+			@ApiResponse(responseCode = "404", description = "Recipe not found by the given ID") })
+	@DeleteMapping("/{id}/ingredients")
+	public ResponseEntity<Void> removeIngredients(
+			@PathVariable @Parameter(description = "Recipe ID", required = true) Integer id,
+			@RequestParam @NotEmpty(message = "{ingredientIds.notEmpty}") @Parameter(description = "Ingredient IDs to remove", required = true) List<Integer> ingredientIds) {
+		logger.info("Removing ingredients from the recipe. Id: {}", id);
+		recipeService.removeIngredients(id, ingredientIds);
+		return ResponseEntity.ok().build();
+	}
+
 	@Operation(summary = "Delete the recipe")
 	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful operation"),
 			@ApiResponse(responseCode = "400", description = "Invalid input"),
@@ -81,9 +145,43 @@ public class RecipeController {
 	@GetMapping("/page/{page}/size/{size}")
 	public ResponseEntity<List<RecipeResponse>> getRecipeList(@PathVariable int page, @PathVariable int size) {
 		logger.info("Getting the recipes");
-		List<Recipe> list = recipeService.getRecipeList(page, size);
-		List<RecipeResponse> response = list.stream().map(RecipeResponse::new).collect(Collectors.toList());
-		return ResponseEntity.ok(response);
+		return ResponseEntity.ok(recipeReadCoalescer.getRecipeList(page, size));
+	}
+
+	@Operation(summary = "List recipes after the given cursor")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor") })
+	@GetMapping("/size/{size}")
+	public ResponseEntity<CursorPageResponse<RecipeResponse>> getRecipeListAfter(@PathVariable int size,
+			@RequestParam(required = false) @Parameter(description = "Cursor returned by the previous page") String after) {
+		logger.info("Getting the recipes after cursor");
+		return ResponseEntity.ok(recipeService.getRecipeListAfter(after, size));
+	}
+
+	@Operation(summary = "Export all recipes with their ingredients, one JSON recipe per line")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successful request") })
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportRecipes() {
+		logger.info("Exporting the recipes");
+		ObjectWriter writer = objectMapper.writerFor(RecipeResponse.class);
+		StreamingResponseBody body = out -> {
+			try {
+				long exported = recipeService.exportRecipes(recipe -> writeLine(out, writer, recipe));
+				logger.info("Exported {} recipes", exported);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	private static void writeLine(OutputStream out, ObjectWriter writer, RecipeResponse recipe) {
+		try {
+			out.write(writer.writeValueAsBytes(recipe));
+			out.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 	@Operation(summary = "List one recipe by its ID")
@@ -93,34 +191,133 @@ public class RecipeController {
 	public ResponseEntity<RecipeResponse> getRecipe(
 			@PathVariable @Parameter(description = "Recipe ID", required = true) Integer id) {
 		logger.info("Getting the recipe by its id. Id: {}", id);
-		Recipe recipe = recipeService.getRecipeById(id);
-		return ResponseEntity.ok(new RecipeResponse(recipe));
+		return ResponseEntity.ok(recipeReadCoalescer.getRecipeById(id));
 	}
 
 
+	@Operation(summary = "Suggest recipe names starting with the given prefix")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid limit") })
+	@GetMapping("/suggest")
+	public ResponseEntity<List<String>> suggestRecipes(
+			@RequestParam(name = "prefix") @Parameter(description = "Start of the name, ignoring case", required = true) String prefix,
+			@RequestParam(name = "limit", defaultValue = "10") @Parameter(description = "Maximum number of names") int limit) {
+		logger.info("Suggesting recipe names for prefix {}", prefix);
+		return ResponseEntity.ok(recipeService.suggestNames(prefix, limit));
+	}
+
+	@Operation(summary = "List the recipes with the most similar ingredients")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid limit"),
+			@ApiResponse(responseCode = "404", description = "Recipe not found by the given ID") })
+	@GetMapping("/{id}/similar")
+	public ResponseEntity<List<SimilarRecipeResponse>> getSimilarRecipes(
+			@PathVariable @Parameter(description = "Recipe ID", required = true) Integer id,
+			@RequestParam(name = "limit", defaultValue = "10") @Parameter(description = "Maximum number of recipes, at most 100") int limit) {
+		logger.info("Getting the recipes similar to recipe {}", id);
+		return ResponseEntity.ok(recipeService.getSimilarRecipes(id, limit));
+	}
+
 	@Operation(summary = "Search recipes by given parameters")
 	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request"),
 			@ApiResponse(responseCode = "404", description = "Different error messages related to criteria and recipe") })
 	@GetMapping("/search")
-	public ResponseEntity<List<RecipeSearchResponse>> searchRecipe(
+	public ResponseEntity<?> searchRecipe(
 			@RequestParam(name = "page", defaultValue = "0") int page,
 			@RequestParam(name = "size", defaultValue = "10") int size,
 			@RequestParam(required = false) Boolean vegetarian, @RequestParam(required = false) Integer servings,
 			@RequestParam(required = false) String includeIngredient,
-			@RequestParam(required = false) String excludeIngredient,
-			@RequestParam(required = false) String instruction) {
+			@RequestParam(required = false) @Parameter(description = "Ingredients that must all be present") List<String> includeAll,
+			@RequestParam(required = false) @Parameter(description = "Ingredients of which at least one must be present") List<String> includeAny,
+			@RequestParam(required = false) List<String> excludeIngredient,
+			@RequestParam(required = false) String instruction,
+			@RequestParam(required = false) String name,
+			@RequestParam(name = "relevance", defaultValue = "false") @Parameter(description = "Rank by relevance to the name and instruction terms instead of sorting by name") boolean relevance,
+			@RequestParam(name = "explain", defaultValue = "false") @Parameter(description = "Describe the search plan and its estimates in the " + SEARCH_PLAN_HEADER + " header") boolean explain,
+			@RequestParam(name = "facets", defaultValue = "false") @Parameter(description = "Wrap the results with the type, servings and ingredient counts of all matching recipes") boolean facets) {
+
+		Pageable pageable = PageRequest.of(page, size,
+				relevance ? Sort.by(RecipeSearchIndex.RELEVANCE) : Sort.by("name").ascending());
+		RecipeSearchReq r = toSearchRequest(vegetarian, servings, includeIngredient, includeAll, includeAny,
+				excludeIngredient, instruction, name);
 
-		Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
+		Object result = facets ? recipeService.searchWithFacets(r, pageable)
+				: recipeReadCoalescer.searchByCriteria(r, pageable);
+
+		if (explain) {
+			return ResponseEntity.ok().header(SEARCH_PLAN_HEADER, recipeService.explainSearch(r).describe()).body(result);
+		}
+		return ResponseEntity.ok(result);
+	}
+
+	@Operation(summary = "Search recipes by given parameters, reading the page after the given cursor")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor or page size") })
+	@GetMapping("/search/size/{size}")
+	public ResponseEntity<?> searchRecipeAfter(@PathVariable int size,
+			@RequestParam(required = false) @Parameter(description = "Cursor returned by the previous page") String after,
+			@RequestParam(required = false) Boolean vegetarian, @RequestParam(required = false) Integer servings,
+			@RequestParam(required = false) String includeIngredient,
+			@RequestParam(required = false) @Parameter(description = "Ingredients that must all be present") List<String> includeAll,
+			@RequestParam(required = false) @Parameter(description = "Ingredients of which at least one must be present") List<String> includeAny,
+			@RequestParam(required = false) List<String> excludeIngredient,
+			@RequestParam(required = false) String instruction,
+			@RequestParam(required = false) String name,
+			@RequestParam(name = "facets", defaultValue = "false") @Parameter(description = "Wrap the results with the type, servings and ingredient counts of all matching recipes") boolean facets) {
+
+		RecipeSearchReq r = toSearchRequest(vegetarian, servings, includeIngredient, includeAll, includeAny,
+				excludeIngredient, instruction, name);
+
+		if (facets) {
+			return ResponseEntity.ok(recipeService.searchAfterWithFacets(r, after, size));
+		}
+		return ResponseEntity.ok(recipeService.searchByCriteriaAfter(r, after, size));
+	}
+
+	@Operation(summary = "Count the recipes matching the given parameters per type, servings and ingredient, without searching them; pass facets=true to a search to get the counts with its results")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request") })
+	@GetMapping("/search/facets")
+	public ResponseEntity<SearchFacetsResponse> searchFacets(
+			@RequestParam(required = false) Boolean vegetarian, @RequestParam(required = false) Integer servings,
+			@RequestParam(required = false) String includeIngredient,
+			@RequestParam(required = false) @Parameter(description = "Ingredients that must all be present") List<String> includeAll,
+			@RequestParam(required = false) @Parameter(description = "Ingredients of which at least one must be present") List<String> includeAny,
+			@RequestParam(required = false) List<String> excludeIngredient,
+			@RequestParam(required = false) String instruction,
+			@RequestParam(required = false) String name) {
+
+		RecipeSearchReq r = toSearchRequest(vegetarian, servings, includeIngredient, includeAll, includeAny,
+				excludeIngredient, instruction, name);
+
+		return ResponseEntity.ok(recipeFacetService.getFacets(r));
+	}
+
+	@Operation(summary = "Search the recipes that can be cooked with the given ingredients")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "400", description = "Invalid input") })
+	@PostMapping("/search/pantry")
+	public ResponseEntity<List<RecipeSearchResponse>> searchPantry(
+			@RequestParam(name = "page", defaultValue = "0") int page,
+			@RequestParam(name = "size", defaultValue = "10") int size,
+			@Valid @RequestBody @Parameter(description = "Ingredients at hand", required = true) PantrySearchRequest request) {
+		logger.info("Searching recipes for a pantry of {} ingredients", request.getIngredientIds().size());
+		return ResponseEntity.ok(recipeService.searchPantry(request.getIngredientIds(), request.getMaxMissing(),
+				PageRequest.of(page, size)));
+	}
+
+	private static RecipeSearchReq toSearchRequest(Boolean vegetarian, Integer servings, String includeIngredient,
+			List<String> includeAll, List<String> includeAny, List<String> excludeIngredient, String instruction,
+			String name) {
 		RecipeSearchReq r = new RecipeSearchReq();
 		r.vegetarian = vegetarian;
 		r.servings = servings;
 		r.includeIngredient = includeIngredient;
+		r.includeAll = includeAll;
+		r.includeAny = includeAny;
 		r.excludeIngredient = excludeIngredient;
 		r.instruction = instruction;
-
-		List<RecipeSearchResponse> result = recipeService.SearchByCriteria(r, pageable);
-
-		return ResponseEntity.ok(result);
+		r.name = name;
+		return r;
 	}
 	
-}
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.abnamro.recipe.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.abnamro.recipe.importer.ImportProgress;
+import com.abnamro.recipe.importer.RecipeImportService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@Tag(name = "RecipeImportController", description = "APIs for importing recipes from newline-delimited JSON")
+@RestController
+@RequestMapping("api/v1/recipe/import")
+public class RecipeImportController {
+
+	private final Logger logger = LoggerFactory.getLogger(RecipeImportController.class);
+
+	private final RecipeImportService recipeImportService;
+
+	@Autowired
+	public RecipeImportController(RecipeImportService recipeImportService) {
+		this.recipeImportService = recipeImportService;
+	}
+
+	@Operation(summary = "Import recipes, one JSON recipe per line")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Import finished, see the counters of the run") })
+	@PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<ImportProgress> importRecipes(
+			@Parameter(description = "Recipes in the create request format, one per line", required = true) InputStream body)
+			throws IOException {
+		logger.info("Importing recipes from the request body");
+		return ResponseEntity.ok(recipeImportService.importRecipes(body, "upload"));
+	}
+
+	@Operation(summary = "List the recent import runs, including the running ones")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request") })
+	@GetMapping
+	public ResponseEntity<List<ImportProgress>> getImports() {
+		return ResponseEntity.ok(recipeImportService.getImports());
+	}
+
+	@Operation(summary = "Get the progress of one import run")
+	@ApiResponses({ @ApiResponse(responseCode = "200", description = "Successful request"),
+			@ApiResponse(responseCode = "404", description = "Import not found by the given ID") })
+	@GetMapping("/{id}")
+	public ResponseEntity<ImportProgress> getImport(
+			@Parameter(description = "Import ID", required = true) @PathVariable(name = "id") String id) {
+		return ResponseEntity.ok(recipeImportService.getImport(id));
+	}
+}
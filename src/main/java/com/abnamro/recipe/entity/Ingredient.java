@@ -1,36 +1,52 @@
 package com.abnamro.recipe.entity;
 
+import com.abnamro.recipe.config.DatabaseAttributes;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.validation.constraints.NotBlank;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 import java.util.Set;
 
 @Entity
 @DynamicUpdate
-@Table(name = "ingredients")
+@Table(name = "ingredients", indexes = @Index(name = "idx_ingredients_normalized_name", columnList = "normalized_name"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = DatabaseAttributes.INGREDIENT_CACHE_REGION)
 public class Ingredient {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ingredient_id")
+    @TableGenerator(name = "ingredient_id", table = DatabaseAttributes.ID_GENERATOR_TABLE, pkColumnName = "sequence_name", valueColumnName = "next_val", pkColumnValue = "ingredients", allocationSize = DatabaseAttributes.ID_ALLOCATION_SIZE)
     private Integer id;
 
     @NotBlank
     @Column(nullable = false, unique = true, length = 30)
     private String name;
 
+    /**
+     * Lower case copy of {@link #name}, so case-insensitive lookups compare a plain indexed column.
+     */
+    @Column(nullable = false, length = 30)
+    private String normalizedName;
+
     @ManyToMany(mappedBy = "recipeIngredients", cascade = {CascadeType.MERGE, CascadeType.PERSIST})
     @JsonIgnoreProperties("recipeIngredients")
     private Set<Recipe> recipeIngredients;
@@ -49,6 +65,15 @@ public class Ingredient {
 
 	public void setIngredientName(String name) {
 		this.name = name;
+		this.normalizedName = normalize(name);
+	}
+
+	public String getNormalizedName() {
+		return normalizedName;
+	}
+
+	public static String normalize(String name) {
+		return name != null ? name.toLowerCase(Locale.ROOT) : null;
 	}
 
 	public Set<Recipe> getRecipeIngredients() {
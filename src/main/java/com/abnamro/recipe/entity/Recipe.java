@@ -1,10 +1,14 @@
 package com.abnamro.recipe.entity;
 
+import com.abnamro.recipe.config.DatabaseAttributes;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -14,10 +18,11 @@ import java.util.Set;
 
 @Entity
 @DynamicUpdate
-@Table(name = "recipes")
+@Table(name = "recipes", indexes = @Index(name = "idx_recipes_type_servings_name", columnList = "type, number_of_servings, name"))
 public class Recipe {
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "recipe_id")
+	@TableGenerator(name = "recipe_id", table = DatabaseAttributes.ID_GENERATOR_TABLE, pkColumnName = "sequence_name", valueColumnName = "next_val", pkColumnValue = "recipes", allocationSize = DatabaseAttributes.ID_ALLOCATION_SIZE)
 	private Integer id;
 
 	@NotBlank
@@ -25,8 +30,10 @@ public class Recipe {
 	private String name;
 
 	@ManyToMany(cascade = { CascadeType.MERGE, CascadeType.PERSIST })
-	@JoinTable(name = "recipe_ingredient", joinColumns = @JoinColumn(name = "recipe_id", referencedColumnName = "id"), inverseJoinColumns = @JoinColumn(name = "ingredient_id", referencedColumnName = "id"))
+	@JoinTable(name = "recipe_ingredient", joinColumns = @JoinColumn(name = "recipe_id", referencedColumnName = "id"), inverseJoinColumns = @JoinColumn(name = "ingredient_id", referencedColumnName = "id"), indexes = @Index(name = "idx_recipe_ingredient_ingredient_recipe", columnList = "ingredient_id, recipe_id"))
 	@JsonIgnoreProperties("ingredientRecipes")
+	@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = DatabaseAttributes.RECIPE_INGREDIENTS_CACHE_REGION)
+	@BatchSize(size = DatabaseAttributes.CACHE_MISS_BATCH_SIZE)
 	private Set<Ingredient> recipeIngredients;
 	@Column(length = 200)
 	private String instructions;
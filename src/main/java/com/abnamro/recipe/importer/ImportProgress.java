@@ -0,0 +1,124 @@
+package com.abnamro.recipe.importer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Live counters of one import run. Updated by the pipeline stages and readable at any time.
+ */
+public class ImportProgress {
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Schema(description = "Id of the import run", example = "3f1c2a8e")
+    private final String id;
+
+    @Schema(description = "Where the records are read from", example = "upload")
+    private final String source;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private final LocalDateTime startedAt = LocalDateTime.now();
+
+    private final long startedNanos = System.nanoTime();
+
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long finishedNanos;
+
+    ImportProgress(String id, String source) {
+        this.id = id;
+        this.source = source;
+    }
+
+    void lineRead() {
+        linesRead.incrementAndGet();
+    }
+
+    void malformed(long lineNumber, String message) {
+        malformed.incrementAndGet();
+        error(lineNumber, message);
+    }
+
+    void created(long count) {
+        created.addAndGet(count);
+    }
+
+    void rejected(long lineNumber, String message) {
+        rejected.incrementAndGet();
+        error(lineNumber, message);
+    }
+
+    void finish(Status status) {
+        this.finishedNanos = System.nanoTime();
+        this.status = status;
+    }
+
+    private void error(long lineNumber, String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + message);
+            }
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public long getLinesRead() {
+        return linesRead.get();
+    }
+
+    public long getCreated() {
+        return created.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getMalformed() {
+        return malformed.get();
+    }
+
+    @Schema(description = "Created recipes per second since the start of the run", example = "1250.5")
+    public double getThroughputPerSecond() {
+        long end = status == Status.RUNNING ? System.nanoTime() : finishedNanos;
+        double seconds = Duration.ofNanos(end - startedNanos).toMillis() / 1000.0;
+        return seconds > 0 ? created.get() / seconds : 0;
+    }
+
+    @Schema(description = "The first " + MAX_REPORTED_ERRORS + " rejected or malformed lines")
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.abnamro.recipe.importer;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command line mode of the importer:
+ * {@code java -jar recipe.jar --spring.main.web-application-type=none --import=recipes.ndjson}.
+ * Does nothing unless the {@code --import} option is given.
+ */
+@Component
+public class RecipeImportRunner implements ApplicationRunner {
+    static final String IMPORT_OPTION = "import";
+
+    private final Logger logger = LoggerFactory.getLogger(RecipeImportRunner.class);
+
+    private final RecipeImportService recipeImportService;
+
+    public RecipeImportRunner(RecipeImportService recipeImportService) {
+        this.recipeImportService = recipeImportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> files = args.getOptionValues(IMPORT_OPTION);
+        if (files == null) {
+            return;
+        }
+        for (String file : files) {
+            Path path = Path.of(file);
+            try (InputStream input = Files.newInputStream(path)) {
+                ImportProgress progress = recipeImportService.importRecipes(input, path.toString());
+                logger.info("Imported {}: {} of {} lines created at {} recipes/s", path, progress.getCreated(),
+                        progress.getLinesRead(), String.format("%.1f", progress.getThroughputPerSecond()));
+                progress.getErrors().forEach(error -> logger.warn("{}: {}", path, error));
+            }
+        }
+    }
+}
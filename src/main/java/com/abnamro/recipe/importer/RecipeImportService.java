@@ -0,0 +1,317 @@
+package com.abnamro.recipe.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.abnamro.recipe.config.MessageProvider;
+import com.abnamro.recipe.config.ValidationConfig;
+import com.abnamro.recipe.exception.NotFoundException;
+import com.abnamro.recipe.response.BulkItemResponse;
+import com.abnamro.recipe.service.IngredientService;
+import com.abnamro.recipe.service.RecipeService;
+import com.abnamro.request.CreateRecipeRequest;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Imports newline-delimited JSON recipes as a three stage pipeline.
+ * <p>
+ * The calling thread reads the input with one streaming parser, so the input is never held in memory, and
+ * hands fixed-size batches to a bounded queue. A resolver thread looks up the ingredients of every batch
+ * with one query and passes it on through a second bounded queue to a writer thread, which stores every
+ * batch in its own transaction through {@link RecipeService#createRecipes(List, Map)}. When a stage falls
+ * behind, the queue in front of it fills up and the stages before it block.
+ * <p>
+ * A record that cannot be parsed is reported as malformed and parsing resumes on the line after the one
+ * the record started on, with a new parser over the characters the old one had already buffered.
+ */
+@Service
+public class RecipeImportService {
+    private static final int MAX_TRACKED_IMPORTS = 20;
+    private static final ImportBatch END_OF_STREAM = new ImportBatch();
+
+    private final Logger logger = LoggerFactory.getLogger(RecipeImportService.class);
+
+    private final RecipeService recipeService;
+    private final IngredientService ingredientService;
+    private final ObjectReader recipeReader;
+    private final MessageProvider messageProvider;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    private final Map<String, ImportProgress> imports = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportProgress> eldest) {
+            return size() > MAX_TRACKED_IMPORTS && eldest.getValue().getStatus() != ImportProgress.Status.RUNNING;
+        }
+    };
+
+    public RecipeImportService(RecipeService recipeService, IngredientService ingredientService,
+                               ObjectMapper objectMapper, MessageProvider messageProvider,
+                               @Value("${recipe.import.batch-size:500}") int batchSize,
+                               @Value("${recipe.import.queue-capacity:4}") int queueCapacity) {
+        this.recipeService = recipeService;
+        this.ingredientService = ingredientService;
+        this.recipeReader = objectMapper.readerFor(CreateRecipeRequest.class);
+        this.messageProvider = messageProvider;
+        this.batchSize = Math.max(1, Math.min(batchSize, ValidationConfig.MAX_BULK_SIZE));
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    public ImportProgress importRecipes(InputStream input, String source) throws IOException {
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), source);
+        synchronized (imports) {
+            imports.put(progress.getId(), progress);
+        }
+        logger.info("Starting recipe import {} from {}", progress.getId(), source);
+
+        BlockingQueue<ImportBatch> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<ImportBatch> resolved = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService worker = Executors.newFixedThreadPool(2,
+                runnable -> new Thread(runnable, "recipe-import-" + progress.getId()));
+        try {
+            Future<?> store = worker.submit(() -> store(resolved, progress));
+            Future<?> resolve = worker.submit(() -> resolve(parsed, resolved, store));
+            parse(input, parsed, resolve, progress);
+            resolve.get();
+            store.get();
+            progress.finish(ImportProgress.Status.COMPLETED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.finish(ImportProgress.Status.FAILED);
+        } catch (ExecutionException | RuntimeException e) {
+            logger.error("Recipe import {} failed", progress.getId(), e);
+            progress.finish(ImportProgress.Status.FAILED);
+        } finally {
+            worker.shutdownNow();
+        }
+
+        logger.info("Finished recipe import {}: {} created, {} rejected, {} malformed", progress.getId(),
+                progress.getCreated(), progress.getRejected(), progress.getMalformed());
+        return progress;
+    }
+
+    public List<ImportProgress> getImports() {
+        synchronized (imports) {
+            return new ArrayList<>(imports.values());
+        }
+    }
+
+    public ImportProgress getImport(String id) {
+        ImportProgress progress;
+        synchronized (imports) {
+            progress = imports.get(id);
+        }
+        if (progress == null) {
+            throw new NotFoundException(messageProvider.getMessage("import.notFound"));
+        }
+        return progress;
+    }
+
+    private void parse(InputStream input, BlockingQueue<ImportBatch> queue, Future<?> resolve, ImportProgress progress)
+            throws IOException, InterruptedException {
+        ReplayReader source = new ReplayReader("",
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+        JsonParser parser = recipeReader.createParser(source);
+        long lineOffset = 0;
+        ImportBatch batch = new ImportBatch();
+        while (!resolve.isDone()) {
+            JsonLocation start = null;
+            try {
+                if (parser.nextToken() == null) {
+                    break;
+                }
+                start = parser.currentTokenLocation();
+                source.discardBefore(start.getCharOffset());
+                progress.lineRead();
+                batch.add(recipeReader.readValue(parser), lineOffset + start.getLineNr());
+            } catch (JsonProcessingException e) {
+                if (start == null) {
+                    start = e.getLocation();
+                    progress.lineRead();
+                }
+                lineOffset += start.getLineNr();
+                progress.malformed(lineOffset, messageProvider.getMessage("json.invalidFormat"));
+                source = source.skipLine(start.getCharOffset());
+                parser = recipeReader.createParser(source);
+                continue;
+            }
+            if (batch.size() == batchSize) {
+                hand(queue, batch, resolve);
+                batch = new ImportBatch();
+            }
+        }
+        if (batch.size() > 0) {
+            hand(queue, batch, resolve);
+        }
+        hand(queue, END_OF_STREAM, resolve);
+    }
+
+    /**
+     * Blocks until the next stage has room for the batch, giving up when that stage has stopped.
+     */
+    private static void hand(BlockingQueue<ImportBatch> queue, ImportBatch batch, Future<?> next)
+            throws InterruptedException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            if (next.isDone()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Resolves the ingredients of every batch outside the write transaction. Always ends the stream of the
+     * writer, so it stops as well when resolving fails.
+     */
+    private Void resolve(BlockingQueue<ImportBatch> parsed, BlockingQueue<ImportBatch> resolved, Future<?> store)
+            throws InterruptedException {
+        try {
+            ImportBatch batch;
+            while (!store.isDone() && (batch = parsed.take()) != END_OF_STREAM) {
+                batch.ingredientNames = ingredientService.findNamesByIds(batch.ingredientIds());
+                hand(resolved, batch, store);
+            }
+        } finally {
+            hand(resolved, END_OF_STREAM, store);
+        }
+        return null;
+    }
+
+    private Void store(BlockingQueue<ImportBatch> queue, ImportProgress progress) throws InterruptedException {
+        ImportBatch batch;
+        while ((batch = queue.take()) != END_OF_STREAM) {
+            List<BulkItemResponse> results = recipeService.createRecipes(batch.requests, batch.ingredientNames);
+            long created = 0;
+            for (BulkItemResponse result : results) {
+                if (result.getStatus() == BulkItemResponse.Status.CREATED) {
+                    created++;
+                } else {
+                    progress.rejected(batch.lineNumbers.get(result.getIndex()), result.getMessage());
+                }
+            }
+            progress.created(created);
+        }
+        return null;
+    }
+
+    private static final class ImportBatch {
+        private final List<CreateRecipeRequest> requests = new ArrayList<>();
+        private final List<Long> lineNumbers = new ArrayList<>();
+        private Map<Integer, String> ingredientNames = Map.of();
+
+        void add(CreateRecipeRequest request, long lineNumber) {
+            requests.add(request);
+            lineNumbers.add(lineNumber);
+        }
+
+        int size() {
+            return requests.size();
+        }
+
+        Set<Integer> ingredientIds() {
+            Set<Integer> ids = new HashSet<>();
+            for (CreateRecipeRequest request : requests) {
+                if (request != null && request.getIngredientIds() != null) {
+                    request.getIngredientIds().stream().filter(Objects::nonNull).forEach(ids::add);
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Reads a pending prefix and then the input, keeping the characters handed out since the start of the
+     * current record, so parsing can resume after a malformed record without reading the input twice.
+     * Offsets count the characters handed out by this reader, like the char offsets of a parser reading it.
+     * Closing it leaves the input open; the caller of the import owns it.
+     */
+    private static final class ReplayReader extends Reader {
+        private final String pending;
+        private int pendingAt;
+        private final Reader in;
+        private final StringBuilder retained = new StringBuilder();
+        private long retainedFrom;
+
+        ReplayReader(String pending, Reader in) {
+            this.pending = pending;
+            this.in = in;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read;
+            if (pendingAt < pending.length()) {
+                read = Math.min(length, pending.length() - pendingAt);
+                pending.getChars(pendingAt, pendingAt + read, buffer, offset);
+                pendingAt += read;
+            } else {
+                read = in.read(buffer, offset, length);
+            }
+            if (read > 0) {
+                retained.append(buffer, offset, read);
+            }
+            return read;
+        }
+
+        /**
+         * Forgets the characters before the offset, which no malformed record can start at any more.
+         */
+        void discardBefore(long offset) {
+            if (offset > retainedFrom) {
+                retained.delete(0, (int) (offset - retainedFrom));
+                retainedFrom = offset;
+            }
+        }
+
+        /**
+         * @return a reader over the input following the first line break at or after the offset, including
+         * the characters already handed out beyond it
+         */
+        ReplayReader skipLine(long offset) throws IOException {
+            String undelivered = pending.substring(pendingAt);
+            int lineBreak = retained.indexOf("\n", (int) Math.max(0, offset - retainedFrom));
+            if (lineBreak >= 0) {
+                return new ReplayReader(retained.substring(lineBreak + 1) + undelivered, in);
+            }
+            lineBreak = undelivered.indexOf('\n');
+            if (lineBreak >= 0) {
+                return new ReplayReader(undelivered.substring(lineBreak + 1), in);
+            }
+            for (int c = in.read(); c != -1 && c != '\n'; c = in.read()) {
+                // skip the rest of the malformed line
+            }
+            return new ReplayReader("", in);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
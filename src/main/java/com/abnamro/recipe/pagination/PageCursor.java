@@ -0,0 +1,75 @@
+package com.abnamro.recipe.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque keyset position: the id, and for name ordered listings the name, of the last returned row.
+ * The next page is read with {@code (name, id) > (:name, :id)} instead of an OFFSET scan.
+ */
+public final class PageCursor {
+    private static final char SEPARATOR = ':';
+
+    private final int id;
+    private final String name;
+
+    public PageCursor(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public static PageCursor of(int id) {
+        return new PageCursor(id, null);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String encode() {
+        String value = name != null ? id + String.valueOf(SEPARATOR) + name : String.valueOf(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the token was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String token) {
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = value.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return of(Integer.parseInt(value));
+        }
+        return new PageCursor(Integer.parseInt(value.substring(0, separator)), value.substring(separator + 1));
+    }
+
+    /**
+     * Decodes a token sent by a client, reporting a malformed one with the given message instead of the
+     * decoding failure.
+     */
+    public static PageCursor decode(String token, String invalidMessage) {
+        try {
+            return decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(invalidMessage, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PageCursor that = (PageCursor) o;
+        return id == that.id && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name);
+    }
+}
@@ -1,10 +1,37 @@
 package com.abnamro.recipe.repository;
 
 import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.response.IngredientResponse;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface IngredientRepository extends JpaRepository<Ingredient, Integer> {
 
+    /**
+     * A page of ingredients selected straight into responses, without hydrating entities.
+     */
+    @Query("select new com.abnamro.recipe.response.IngredientResponse(i.id, i.name, i.createdAt, i.updatedAt) "
+            + "from Ingredient i order by i.id")
+    List<IngredientResponse> findResponsePage(Pageable pageable);
+
+    Slice<Ingredient> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    /**
+     * Database fallback of the name suggestions, shortest names first. The prefix must be normalized.
+     */
+    @Query("select i.name from Ingredient i where i.normalizedName like concat(:prefix, '%') "
+            + "order by length(i.name), i.name")
+    List<String> findNamesStartingWith(@Param("prefix") String prefix, Pageable pageable);
+
+    @Query("select i.name from Ingredient i where i.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
 }
@@ -1,11 +1,100 @@
 package com.abnamro.recipe.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import com.abnamro.recipe.config.DatabaseAttributes;
 import com.abnamro.recipe.entity.Recipe;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Integer>, JpaSpecificationExecutor<Recipe> {
 
-}
\ No newline at end of file
+	/**
+	 * All recipes with their ingredients in id order, so an index built from them appends to its postings.
+	 */
+	@Query("select distinct r from Recipe r left join fetch r.recipeIngredients order by r.id")
+	List<Recipe> findAllWithIngredients();
+
+	/**
+	 * Second phase of a list page load: the recipes of the given ids with their ingredients as flat rows, in
+	 * one query and without hydrating entities.
+	 */
+	@Query("select new com.abnamro.recipe.repository.RecipeRow(r.id, r.name, r.type, r.numberOfServings, "
+			+ "r.instructions, r.createdAt, r.updatedAt, i.id, i.name, i.createdAt, i.updatedAt) "
+			+ "from Recipe r left join r.recipeIngredients i where r.id in :ids")
+	List<RecipeRow> findRowsByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Second phase of a search page load: only the columns a search result returns.
+	 */
+	@Query("select new com.abnamro.recipe.repository.RecipeSearchRow(r.id, r.name, r.type, r.numberOfServings, "
+			+ "r.instructions, i.name) from Recipe r left join r.recipeIngredients i where r.id in :ids")
+	List<RecipeSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<Integer> ids);
+
+	@Query("select r.id from Recipe r order by r.id")
+	List<Integer> findPageOfIds(Pageable pageable);
+
+	@Query("select r.id from Recipe r where r.id > :id order by r.id")
+	Slice<Integer> findIdsAfter(@Param("id") Integer id, Pageable pageable);
+
+	/**
+	 * Database fallback of the pantry search: recipes missing at most {@code maxMissing} of their ingredients
+	 * from the given ones, fewest missing first. Recipes without ingredients are left out, as they would match
+	 * any pantry. Groups every recipe, so it scans.
+	 */
+	@Query("select r.id from Recipe r join r.recipeIngredients i group by r.id, r.name "
+			+ "having count(i) - sum(case when i.id in :ids then 1 else 0 end) <= :maxMissing "
+			+ "order by count(i) - sum(case when i.id in :ids then 1 else 0 end), r.name, r.id")
+	List<Integer> findPantryMatches(@Param("ids") Collection<Integer> ingredientIds,
+			@Param("maxMissing") long maxMissing, Pageable pageable);
+
+	/**
+	 * Database fallback of the similar recipes: every other recipe sharing an ingredient with the given ones.
+	 * Groups every recipe, so it scans.
+	 */
+	@Query("select new com.abnamro.recipe.repository.SharedIngredientsRow(r.id, r.name, count(i), "
+			+ "sum(case when i.id in :ids then 1 else 0 end)) from Recipe r join r.recipeIngredients i "
+			+ "where r.id <> :id group by r.id, r.name having sum(case when i.id in :ids then 1 else 0 end) > 0")
+	List<SharedIngredientsRow> findRecipesSharingIngredients(@Param("id") Integer id,
+			@Param("ids") Collection<Integer> ingredientIds);
+
+	/**
+	 * Recipes having any of the ingredients, found through the normalized name and join table indexes. Drives
+	 * index-first search plans.
+	 */
+	@Query("select distinct r.id from Recipe r join r.recipeIngredients i where i.normalizedName in :names")
+	List<Integer> findIdsByIngredientNames(@Param("names") Collection<String> normalizedNames);
+
+	/**
+	 * Database fallback of the name suggestions, shortest names first. The prefix must be lower case.
+	 */
+	@Query("select r.name from Recipe r where lower(r.name) like concat(:prefix, '%') order by length(r.name), r.name")
+	List<String> findNamesStartingWith(@Param("prefix") String prefix, Pageable pageable);
+
+	@Query("select r.name from Recipe r where r.name in :names")
+	List<String> findExistingNames(@Param("names") Collection<String> names);
+
+	/**
+	 * Every recipe joined with its ingredients as flat rows, ordered by recipe id so the rows of one recipe are
+	 * adjacent. Read through a forward-only cursor; must be consumed and closed inside a transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = DatabaseAttributes.EXPORT_FETCH_SIZE))
+	@Query("select new com.abnamro.recipe.repository.RecipeRow(r.id, r.name, r.type, r.numberOfServings, "
+			+ "r.instructions, r.createdAt, r.updatedAt, i.id, i.name, i.createdAt, i.updatedAt) "
+			+ "from Recipe r left join r.recipeIngredients i order by r.id")
+	Stream<RecipeRow> streamAllForExport();
+}
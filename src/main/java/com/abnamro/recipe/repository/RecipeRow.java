@@ -0,0 +1,73 @@
+package com.abnamro.recipe.repository;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+
+import com.abnamro.recipe.response.IngredientResponse;
+import com.abnamro.recipe.response.RecipeResponse;
+
+/**
+ * A recipe joined with one of its ingredients, or with none. Selected as plain values by the export and the
+ * list pages, so reading them never fills the persistence context.
+ */
+public class RecipeRow {
+	private final int recipeId;
+	private final String name;
+	private final String type;
+	private final int numberOfServings;
+	private final String instructions;
+	private final LocalDateTime createdAt;
+	private final LocalDateTime updatedAt;
+	private final Integer ingredientId;
+	private final String ingredientName;
+	private final LocalDateTime ingredientCreatedAt;
+	private final LocalDateTime ingredientUpdatedAt;
+
+	public RecipeRow(int recipeId, String name, String type, int numberOfServings, String instructions,
+			LocalDateTime createdAt, LocalDateTime updatedAt, Integer ingredientId, String ingredientName,
+			LocalDateTime ingredientCreatedAt, LocalDateTime ingredientUpdatedAt) {
+		this.recipeId = recipeId;
+		this.name = name;
+		this.type = type;
+		this.numberOfServings = numberOfServings;
+		this.instructions = instructions;
+		this.createdAt = createdAt;
+		this.updatedAt = updatedAt;
+		this.ingredientId = ingredientId;
+		this.ingredientName = ingredientName;
+		this.ingredientCreatedAt = ingredientCreatedAt;
+		this.ingredientUpdatedAt = ingredientUpdatedAt;
+	}
+
+	public int getRecipeId() {
+		return recipeId;
+	}
+
+	public RecipeResponse toRecipeResponse() {
+		RecipeResponse response = new RecipeResponse();
+		response.setId(recipeId);
+		response.setName(name);
+		response.setType(type);
+		response.setNumberOfServings(numberOfServings);
+		response.setInstructions(instructions);
+		response.setCreatedAt(createdAt);
+		response.setUpdatedAt(updatedAt);
+		response.setIngredients(new HashSet<>());
+		return response;
+	}
+
+	/**
+	 * Adds the ingredient of this row, if any, to the recipe built from the first row of the same recipe.
+	 */
+	public void addIngredientTo(RecipeResponse response) {
+		if (ingredientId == null) {
+			return;
+		}
+		IngredientResponse ingredient = new IngredientResponse();
+		ingredient.setId(ingredientId);
+		ingredient.setIngredientName(ingredientName);
+		ingredient.setCreatedAt(ingredientCreatedAt);
+		ingredient.setUpdatedAt(ingredientUpdatedAt);
+		response.getIngredients().add(ingredient);
+	}
+}
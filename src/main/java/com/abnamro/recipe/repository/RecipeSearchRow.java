@@ -0,0 +1,51 @@
+package com.abnamro.recipe.repository;
+
+import java.util.ArrayList;
+
+import com.abnamro.recipe.response.RecipeSearchResponse;
+
+/**
+ * A search result recipe joined with the name of one of its ingredients, or with none.
+ */
+public class RecipeSearchRow {
+	private final int recipeId;
+	private final String name;
+	private final String type;
+	private final int numberOfServings;
+	private final String instructions;
+	private final String ingredientName;
+
+	public RecipeSearchRow(int recipeId, String name, String type, int numberOfServings, String instructions,
+			String ingredientName) {
+		this.recipeId = recipeId;
+		this.name = name;
+		this.type = type;
+		this.numberOfServings = numberOfServings;
+		this.instructions = instructions;
+		this.ingredientName = ingredientName;
+	}
+
+	public int getRecipeId() {
+		return recipeId;
+	}
+
+	public RecipeSearchResponse toSearchResponse() {
+		RecipeSearchResponse response = new RecipeSearchResponse();
+		response.id = recipeId;
+		response.name = name;
+		response.type = type;
+		response.numberOfServings = numberOfServings;
+		response.instructions = instructions;
+		response.ingredients = new ArrayList<>();
+		return response;
+	}
+
+	/**
+	 * Adds the ingredient of this row, if any, to the result built from the first row of the same recipe.
+	 */
+	public void addIngredientTo(RecipeSearchResponse response) {
+		if (ingredientName != null) {
+			response.ingredients.add(ingredientName);
+		}
+	}
+}
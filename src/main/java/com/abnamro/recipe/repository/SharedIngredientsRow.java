@@ -0,0 +1,33 @@
+package com.abnamro.recipe.repository;
+
+/**
+ * A recipe sharing ingredients with another one: its ingredient count and how many of them are shared.
+ */
+public class SharedIngredientsRow {
+	private final int recipeId;
+	private final String name;
+	private final long ingredientCount;
+	private final long sharedCount;
+
+	public SharedIngredientsRow(int recipeId, String name, long ingredientCount, long sharedCount) {
+		this.recipeId = recipeId;
+		this.name = name;
+		this.ingredientCount = ingredientCount;
+		this.sharedCount = sharedCount;
+	}
+
+	public int getRecipeId() {
+		return recipeId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the Jaccard similarity with the other recipe, which has the given number of ingredients
+	 */
+	public double jaccard(int otherIngredientCount) {
+		return (double) sharedCount / (ingredientCount + otherIngredientCount - sharedCount);
+	}
+}
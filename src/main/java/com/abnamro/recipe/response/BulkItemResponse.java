@@ -0,0 +1,59 @@
+package com.abnamro.recipe.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResponse {
+
+	public enum Status {
+		CREATED, REJECTED
+	}
+
+	@Schema(description = "Position of the item in the submitted array", example = "0")
+	private int index;
+
+	@Schema(description = "Id of the created entity", example = "1")
+	private Integer id;
+
+	@Schema(description = "Outcome for this item", example = "CREATED")
+	private Status status;
+
+	@Schema(description = "Why the item was rejected", example = "Please provide the recipe name.")
+	private String message;
+
+	public BulkItemResponse() {
+	}
+
+	private BulkItemResponse(int index, Integer id, Status status, String message) {
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.message = message;
+	}
+
+	public static BulkItemResponse created(int index, int id) {
+		return new BulkItemResponse(index, id, Status.CREATED, null);
+	}
+
+	public static BulkItemResponse rejected(int index, String message) {
+		return new BulkItemResponse(index, null, Status.REJECTED, message);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Integer getId() {
+		return id;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+}
@@ -0,0 +1,38 @@
+package com.abnamro.recipe.response;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class CursorPageResponse<T> {
+
+	@Schema(description = "The returned items")
+	private List<T> items;
+
+	@Schema(description = "Cursor to pass as 'after' to read the next page, absent on the last page", example = "MTI")
+	private String nextCursor;
+
+	public CursorPageResponse() {
+	}
+
+	public CursorPageResponse(List<T> items, String nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+}
@@ -0,0 +1,36 @@
+package com.abnamro.recipe.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class FacetedResponse<T> {
+
+	@Schema(description = "The search results, as returned without facets")
+	private T results;
+
+	@Schema(description = "Facet counts over all the recipes matching the filters, not just the returned page")
+	private SearchFacetsResponse facets;
+
+	public FacetedResponse() {
+	}
+
+	public FacetedResponse(T results, SearchFacetsResponse facets) {
+		this.results = results;
+		this.facets = facets;
+	}
+
+	public T getResults() {
+		return results;
+	}
+
+	public void setResults(T results) {
+		this.results = results;
+	}
+
+	public SearchFacetsResponse getFacets() {
+		return facets;
+	}
+
+	public void setFacets(SearchFacetsResponse facets) {
+		this.facets = facets;
+	}
+}
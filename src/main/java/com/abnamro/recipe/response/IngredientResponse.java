@@ -27,6 +27,13 @@ public class IngredientResponse {
     public IngredientResponse() {
     }
 
+    public IngredientResponse(int id, String name, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public IngredientResponse(Ingredient ingredient) {
         this.id = ingredient.getId();
         this.name = ingredient.getName();
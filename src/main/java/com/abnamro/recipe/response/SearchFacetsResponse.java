@@ -0,0 +1,50 @@
+package com.abnamro.recipe.response;
+
+import java.util.Map;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class SearchFacetsResponse {
+	@Schema(description = "Number of recipes matching the filters", example = "42")
+	private long total;
+	@Schema(description = "Matching recipes per recipe type")
+	private Map<String, Long> types;
+	@Schema(description = "Matching recipes per number of servings")
+	private Map<Integer, Long> servings;
+	@Schema(description = "Matching recipes for the most used ingredients, most used first")
+	private Map<String, Long> ingredients;
+	@Schema(description = "False when the latency budget ran out and the counts cover only part of the matches", example = "true")
+	private boolean complete;
+
+	public SearchFacetsResponse() {
+	}
+
+	public SearchFacetsResponse(long total, Map<String, Long> types, Map<Integer, Long> servings,
+			Map<String, Long> ingredients, boolean complete) {
+		this.total = total;
+		this.types = types;
+		this.servings = servings;
+		this.ingredients = ingredients;
+		this.complete = complete;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public Map<String, Long> getTypes() {
+		return types;
+	}
+
+	public Map<Integer, Long> getServings() {
+		return servings;
+	}
+
+	public Map<String, Long> getIngredients() {
+		return ingredients;
+	}
+
+	public boolean isComplete() {
+		return complete;
+	}
+}
@@ -0,0 +1,33 @@
+package com.abnamro.recipe.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class SimilarRecipeResponse {
+	@Schema(description = "The id of the similar recipe", example = "2")
+	private int id;
+	@Schema(description = "The name of the similar recipe", example = "Tomato soup")
+	private String name;
+	@Schema(description = "Jaccard similarity of the ingredient sets, estimated when served from the index", example = "0.75")
+	private double similarity;
+
+	public SimilarRecipeResponse() {
+	}
+
+	public SimilarRecipeResponse(int id, String name, double similarity) {
+		this.id = id;
+		this.name = name;
+		this.similarity = similarity;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double getSimilarity() {
+		return similarity;
+	}
+}
@@ -0,0 +1,86 @@
+package com.abnamro.recipe.search.cache;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caches the ids of search result pages, keyed by the canonical form of the request and the page.
+ * <p>
+ * Every key carries the generation it was computed in. A committed write to recipes or their ingredients
+ * moves the generation on, which makes all earlier entries unreachable at once; they age out of the
+ * bounded cache instead of being flushed.
+ */
+@Component
+public class SearchResultCache {
+
+    private final Cache<SearchKey, List<Integer>> results;
+    private final AtomicLong generation = new AtomicLong();
+
+    public SearchResultCache(Cache<SearchKey, List<Integer>> searchResultNearCache) {
+        this.results = searchResultNearCache;
+    }
+
+    /**
+     * @return the cached ids of the page, or those returned by the search, which are then cached
+     */
+    public List<Integer> get(RecipeSearchReq request, Pageable pageable, Supplier<List<Integer>> search) {
+        return results.get(keyOf(request, pageable), k -> List.copyOf(search.get()));
+    }
+
+    /**
+     * @return the canonical key of the page in the current generation
+     */
+    public SearchKey keyOf(RecipeSearchReq request, Pageable pageable) {
+        return SearchKey.of(generation.get(), request, pageable);
+    }
+
+    /**
+     * Makes every cached page unreachable. Call after the write has committed and the search index has
+     * been updated, so a search in the new generation observes the write.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * A search request in canonical form: matching is case-insensitive on every text criterion and the
+     * ingredient criteria are sets, with {@code includeIngredient} folded into the required ones, so requests
+     * that differ only in those respects share an entry.
+     */
+    public record SearchKey(long generation, Boolean vegetarian, Integer servings, List<String> includeAll,
+                            List<String> includeAny, List<String> excludeIngredient, String instruction, String name,
+                            int page, int size, String sort) {
+
+        static SearchKey of(long generation, RecipeSearchReq request, Pageable pageable) {
+            return new SearchKey(generation, request.vegetarian, request.servings,
+                    canonical(request.requiredIngredients()), canonical(request.anyIngredients()),
+                    canonical(request.excludeIngredient), canonical(request.instruction), canonical(request.name),
+                    pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().toString());
+        }
+
+        private static List<String> canonical(List<String> ingredients) {
+            if (ingredients == null || ingredients.isEmpty()) {
+                return List.of();
+            }
+            return ingredients.stream()
+                    .filter(Objects::nonNull)
+                    .map(SearchKey::canonical)
+                    .distinct()
+                    .sorted()
+                    .toList();
+        }
+
+        private static String canonical(String value) {
+            return value != null ? value.toLowerCase(Locale.ROOT) : null;
+        }
+    }
+}
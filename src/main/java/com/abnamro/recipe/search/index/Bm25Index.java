@@ -0,0 +1,274 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Token postings with term frequencies over the lower-cased name and instructions of the indexed recipes,
+ * ranking candidates by BM25.
+ * <p>
+ * Every term keeps the ids of the recipes containing it in ascending order, next to their term frequency.
+ * The candidates are scored in id order, so each term advances a cursor through its own postings instead of
+ * looking the recipe up, and the best {@code k} are kept in a bounded heap of primitives. A query allocates
+ * a few arrays per term and the heap, never anything per candidate. Not thread-safe; guarded by the lock of
+ * the owning {@link RecipeSearchIndex}.
+ * <p>
+ * The name and instruction filters match substrings, so a query term is often part of a token only, as
+ * {@code salm} is of {@code salmon}. A term that no recipe has as a whole token is scored through the tokens
+ * containing it, each with its own weight; finding those scans the vocabulary, which only such terms pay for.
+ */
+class Bm25Index {
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int[] lengths = new int[0];
+    private int documentCount;
+    private long totalLength;
+
+    void add(int id, String... texts) {
+        List<String> tokens = tokens(texts);
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, key -> new Postings()).put(id, frequency));
+
+        if (id >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(id + 1, lengths.length * 2));
+        }
+        lengths[id] = tokens.size();
+        documentCount++;
+        totalLength += tokens.size();
+    }
+
+    /**
+     * Removes a recipe; the texts must be the ones it was added with.
+     */
+    void remove(int id, String... texts) {
+        for (String term : new LinkedHashSet<>(tokens(texts))) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null && termPostings.remove(id) && termPostings.size == 0) {
+                postings.remove(term);
+            }
+        }
+        documentCount--;
+        totalLength -= lengths[id];
+        lengths[id] = 0;
+    }
+
+    void clear() {
+        postings.clear();
+        lengths = new int[0];
+        documentCount = 0;
+        totalLength = 0;
+    }
+
+    /**
+     * @return the ids of the {@code k} candidates scoring highest for the terms, best first and then by id
+     */
+    int[] top(BitSet candidates, Set<String> terms, int k) {
+        TopK top = new TopK(Math.min(k, candidates.cardinality()));
+        if (top.capacity == 0) {
+            return new int[0];
+        }
+
+        Set<Postings> scored = new LinkedHashSet<>();
+        for (String term : terms) {
+            Postings termPostings = postings.get(term);
+            if (termPostings != null) {
+                scored.add(termPostings);
+            } else {
+                postings.forEach((token, tokenPostings) -> {
+                    if (token.contains(term)) {
+                        scored.add(tokenPostings);
+                    }
+                });
+            }
+        }
+
+        int termCount = scored.size();
+        Postings[] lists = scored.toArray(new Postings[0]);
+        double[] idf = new double[termCount];
+        int[] cursors = new int[termCount];
+        for (int t = 0; t < termCount; t++) {
+            idf[t] = Math.log(1 + (documentCount - lists[t].size + 0.5) / (lists[t].size + 0.5));
+        }
+
+        double averageLength = documentCount > 0 ? (double) totalLength / documentCount : 0;
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            double lengthNorm = averageLength > 0 ? K1 * (1 - B + B * lengths[id] / averageLength) : K1;
+            double score = 0;
+            for (int t = 0; t < termCount; t++) {
+                Postings list = lists[t];
+                int at = Arrays.binarySearch(list.ids, cursors[t], list.size, id);
+                if (at >= 0) {
+                    int frequency = list.frequencies[at];
+                    score += idf[t] * frequency * (K1 + 1) / (frequency + lengthNorm);
+                    cursors[t] = at + 1;
+                } else {
+                    cursors[t] = -at - 1;
+                }
+            }
+            top.offer(id, score);
+        }
+        return top.ranked();
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * Splits lower-cased texts into runs of letters and digits, keeping duplicates.
+     */
+    static List<String> tokens(String... texts) {
+        List<String> tokens = new ArrayList<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            int start = -1;
+            for (int i = 0; i <= text.length(); i++) {
+                boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+                if (tokenChar && start < 0) {
+                    start = i;
+                } else if (!tokenChar && start >= 0) {
+                    tokens.add(text.substring(start, i));
+                    start = -1;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Recipe ids in ascending order with their term frequency, in parallel arrays.
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        /**
+         * Appends ids above the last in constant time, so adding recipes in id order builds each list in
+         * linear time; any other id is inserted in place.
+         */
+        void put(int id, int frequency) {
+            int at = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                frequencies[at] = frequency;
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            System.arraycopy(frequencies, at, frequencies, at + 1, size - at);
+            ids[at] = id;
+            frequencies[at] = frequency;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+            System.arraycopy(frequencies, at + 1, frequencies, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, id) pairs with the weakest entry at the root: the lower score, or the
+     * higher id on equal scores.
+     */
+    private static final class TopK {
+        private final int capacity;
+        private final int[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            this.ids = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        void offer(int id, double score) {
+            if (size < capacity) {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (weaker(ids[0], scores[0], id, score)) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Empties the heap, weakest first, into an array filled from the back.
+         */
+        int[] ranked() {
+            int[] ranked = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                ranked[i] = ids[0];
+                size--;
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return ranked;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!weaker(ids[index], scores[index], ids[parent], scores[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int weakest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (weaker(ids[child], scores[child], ids[weakest], scores[weakest])) {
+                        weakest = child;
+                    }
+                }
+                if (weakest == index) {
+                    return;
+                }
+                swap(index, weakest);
+                index = weakest;
+            }
+        }
+
+        private void swap(int first, int second) {
+            int id = ids[first];
+            double score = scores[first];
+            ids[first] = ids[second];
+            scores[first] = scores[second];
+            ids[second] = id;
+            scores[second] = score;
+        }
+
+        private static boolean weaker(int id, double score, int otherId, double otherScore) {
+            return score < otherScore || (score == otherScore && id > otherId);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.List;
+
+/**
+ * The ids of a page of search results together with the facet counts of all the matches of the search.
+ */
+public record FacetedPage(List<Integer> ids, SearchFacets facets) {
+}
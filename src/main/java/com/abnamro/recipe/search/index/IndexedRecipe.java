@@ -0,0 +1,99 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+
+/**
+ * Immutable snapshot of the searchable attributes of a {@link Recipe}.
+ * Taken inside the writing transaction so the index never touches lazy state.
+ */
+public final class IndexedRecipe {
+
+    private final int id;
+    private final String name;
+    private final String normalizedName;
+    private final String type;
+    private final int numberOfServings;
+    private final String instructions;
+    private final Set<String> ingredientNames;
+    private final Set<Integer> ingredientIds;
+
+    public IndexedRecipe(int id, String name, String type, int numberOfServings, String instructions,
+                         Set<String> ingredientNames) {
+        this(id, name, type, numberOfServings, instructions, ingredientNames, null);
+    }
+
+    public IndexedRecipe(int id, String name, String type, int numberOfServings, String instructions,
+                         Set<String> ingredientNames, Set<Integer> ingredientIds) {
+        this.id = id;
+        this.name = name;
+        this.normalizedName = normalize(name);
+        this.type = type;
+        this.numberOfServings = numberOfServings;
+        this.instructions = normalize(instructions);
+        this.ingredientNames = ingredientNames != null
+                ? ingredientNames.stream().map(IndexedRecipe::normalize).collect(Collectors.toUnmodifiableSet())
+                : Collections.emptySet();
+        this.ingredientIds = ingredientIds != null ? Set.copyOf(ingredientIds) : Collections.emptySet();
+    }
+
+    public static IndexedRecipe of(Recipe recipe) {
+        Set<Ingredient> ingredients = recipe.getRecipeIngredients() != null
+                ? recipe.getRecipeIngredients()
+                : Collections.emptySet();
+
+        return new IndexedRecipe(recipe.getId(), recipe.getName(), recipe.getType(), recipe.getNumberOfServings(),
+                recipe.getInstructions(), ingredients.stream().map(Ingredient::getName).collect(Collectors.toSet()),
+                ingredients.stream().map(Ingredient::getId).collect(Collectors.toSet()));
+    }
+
+    static String normalize(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : null;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Lower-cased name, ready for case-insensitive matching.
+     */
+    public String getNormalizedName() {
+        return normalizedName;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public int getNumberOfServings() {
+        return numberOfServings;
+    }
+
+    /**
+     * Lower-cased instructions, ready for case-insensitive matching.
+     */
+    public String getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Lower-cased ingredient names.
+     */
+    public Set<String> getIngredientNames() {
+        return ingredientNames;
+    }
+
+    public Set<Integer> getIngredientIds() {
+        return ingredientIds;
+    }
+}
@@ -0,0 +1,158 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * MinHash signatures of the ingredient sets, bucketed by locality-sensitive hashing.
+ * <p>
+ * The share of equal positions in two signatures estimates the Jaccard similarity of the two sets. Each
+ * signature is cut into bands, and recipes whose signatures agree on a whole band share a bucket. A query
+ * only scores the recipes in the buckets of its own bands. With {@value #BANDS} bands of {@value #ROWS_PER_BAND}
+ * rows, pairs above a similarity of about 0.18 are likely to meet in at least one bucket. Every hash function
+ * runs the ingredient id, xor a seed of its own, through the 64-bit finalizer of MurmurHash3, so the dense,
+ * sequential ids are spread evenly before their minimum is taken. Recipes without ingredients have no
+ * signature. Not thread-safe; guarded by the lock of the owning {@link RecipeSearchIndex}.
+ */
+class MinHashIndex {
+    static final int HASHES = 64;
+    static final int ROWS_PER_BAND = 2;
+    static final int BANDS = HASHES / ROWS_PER_BAND;
+
+    private static final long SEED = 0x5eed_2024L;
+
+    private final long[] seeds = new long[HASHES];
+
+    private final Map<Integer, int[]> signatures = new HashMap<>();
+    private final Map<Long, BitSet> buckets = new HashMap<>();
+
+    MinHashIndex() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < HASHES; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    void add(int id, Set<Integer> ingredientIds) {
+        if (ingredientIds.isEmpty()) {
+            return;
+        }
+        int[] signature = signature(ingredientIds);
+        signatures.put(id, signature);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bucketKey(signature, band), key -> new BitSet()).set(id);
+        }
+    }
+
+    void remove(int id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bucketKey(signature, band);
+            BitSet bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.clear(id);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        signatures.clear();
+        buckets.clear();
+    }
+
+    /**
+     * @return up to {@code limit} other recipes sharing a bucket with the given one, by estimated similarity
+     * descending and then by id, mapped to that estimate
+     */
+    Map<Integer, Double> similarTo(int id, int limit) {
+        int[] signature = signatures.get(id);
+        if (signature == null) {
+            return Map.of();
+        }
+
+        BitSet candidates = new BitSet();
+        for (int band = 0; band < BANDS; band++) {
+            BitSet bucket = buckets.get(bucketKey(signature, band));
+            if (bucket != null) {
+                candidates.or(bucket);
+            }
+        }
+        candidates.clear(id);
+
+        Comparator<Scored> ranking = Comparator.comparingDouble(Scored::similarity).reversed()
+                .thenComparingInt(Scored::id);
+        PriorityQueue<Scored> top = new PriorityQueue<>(Math.min(limit, candidates.cardinality()) + 1,
+                ranking.reversed());
+        for (int candidate = candidates.nextSetBit(0); candidate >= 0; candidate = candidates.nextSetBit(candidate + 1)) {
+            top.add(new Scored(candidate, estimate(signature, signatures.get(candidate))));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+        Map<Integer, Double> similar = new LinkedHashMap<>();
+        ranked.forEach(scored -> similar.put(scored.id(), scored.similarity()));
+        return similar;
+    }
+
+    int[] signature(Set<Integer> ingredientIds) {
+        int[] signature = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            int min = Integer.MAX_VALUE;
+            for (Integer ingredientId : ingredientIds) {
+                min = Math.min(min, (int) (mix(seeds[i] ^ ingredientId) >>> 33));
+            }
+            signature[i] = min;
+        }
+        return signature;
+    }
+
+    static double estimate(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    /**
+     * The 64-bit finalizer of MurmurHash3: every input bit affects every output bit.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private static long bucketKey(int[] signature, int band) {
+        int hash = 1;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            hash = 31 * hash + signature[row];
+        }
+        return ((long) band << 32) | (hash & 0xffffffffL);
+    }
+
+    private record Scored(int id, double similarity) {
+    }
+}
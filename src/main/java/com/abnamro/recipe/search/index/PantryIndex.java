@@ -0,0 +1,94 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers "which recipes can be cooked from this pantry" without looking at every recipe.
+ * <p>
+ * Keeps the recipes of every ingredient id as a bitmap, and the recipes bucketed by their number of
+ * ingredients. A recipe is missing {@code count - hits} ingredients, where hits is the number of pantry
+ * ingredients whose postings contain it, so only the postings of the pantry are walked. Recipes that no
+ * pantry ingredient reaches can still qualify by having at most {@code maxMissing} ingredients in total;
+ * those come from the smallest buckets. Recipes without ingredients are not indexed: they would match
+ * every pantry, and the database fallback does not return them either. Not thread-safe; guarded by the lock
+ * of the owning {@link RecipeSearchIndex}.
+ */
+class PantryIndex {
+    private final Map<Integer, BitSet> recipesByIngredient = new HashMap<>();
+    private final Map<Integer, BitSet> recipesByIngredientCount = new HashMap<>();
+    private final Map<Integer, Integer> ingredientCounts = new HashMap<>();
+
+    void add(int id, Set<Integer> ingredientIds) {
+        if (ingredientIds.isEmpty()) {
+            return;
+        }
+        for (Integer ingredientId : ingredientIds) {
+            recipesByIngredient.computeIfAbsent(ingredientId, key -> new BitSet()).set(id);
+        }
+        recipesByIngredientCount.computeIfAbsent(ingredientIds.size(), key -> new BitSet()).set(id);
+        ingredientCounts.put(id, ingredientIds.size());
+    }
+
+    void remove(int id, Set<Integer> ingredientIds) {
+        for (Integer ingredientId : ingredientIds) {
+            clear(recipesByIngredient, ingredientId, id);
+        }
+        clear(recipesByIngredientCount, ingredientIds.size(), id);
+        ingredientCounts.remove(id);
+    }
+
+    void clear() {
+        recipesByIngredient.clear();
+        recipesByIngredientCount.clear();
+        ingredientCounts.clear();
+    }
+
+    /**
+     * @return by recipe id, the number of missing ingredients of every recipe that lacks at most
+     * {@code maxMissing} of its ingredients from the pantry
+     */
+    Map<Integer, Integer> match(Collection<Integer> pantry, int maxMissing) {
+        Map<Integer, Integer> hits = new HashMap<>();
+        for (Integer ingredientId : new HashSet<>(pantry)) {
+            BitSet recipes = recipesByIngredient.get(ingredientId);
+            if (recipes == null) {
+                continue;
+            }
+            for (int id = recipes.nextSetBit(0); id >= 0; id = recipes.nextSetBit(id + 1)) {
+                hits.merge(id, 1, Integer::sum);
+            }
+        }
+
+        Map<Integer, Integer> missing = new HashMap<>();
+        hits.forEach((id, count) -> {
+            int missed = ingredientCounts.get(id) - count;
+            if (missed <= maxMissing) {
+                missing.put(id, missed);
+            }
+        });
+        recipesByIngredientCount.forEach((count, recipes) -> {
+            if (count <= maxMissing) {
+                for (int id = recipes.nextSetBit(0); id >= 0; id = recipes.nextSetBit(id + 1)) {
+                    missing.putIfAbsent(id, count);
+                }
+            }
+        });
+        return missing;
+    }
+
+    private static void clear(Map<Integer, BitSet> postings, int key, int id) {
+        BitSet bitmap = postings.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.clear(id);
+        if (bitmap.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.abnamro.recipe.entity.RecipeType;
+import com.abnamro.recipe.pagination.PageCursor;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.search.suggest.PrefixTrie;
+
+/**
+ * In-memory inverted index answering {@link RecipeSearchReq} filters without touching the database.
+ * <p>
+ * Every ingredient name, recipe type and servings value maps to a bitmap of recipe ids. Recipe ids are
+ * dense identity values, so a {@link BitSet} keeps the postings compact and turns every predicate into
+ * a word-wise AND / AND-NOT. Substring filters on name and instructions are narrowed with
+ * {@link TrigramIndex} postings and verified only against the surviving candidates, and can be ranked by
+ * relevance through the {@link Bm25Index} over name and instructions. The pantry search and the
+ * similar recipes are served by a {@link PantryIndex} and a {@link MinHashIndex}, and name suggestions by a
+ * {@link PrefixTrie}, all kept under the same lock.
+ */
+@Component
+public class RecipeSearchIndex {
+    /**
+     * Sort property ranking the matches of the name and instruction terms by BM25 score instead of by a column.
+     * Terms that are only part of a word are scored through the words containing them, see {@link Bm25Index}.
+     */
+    public static final String RELEVANCE = "relevance";
+
+    /**
+     * The facet pass checks its deadline once per this many recipes, keeping {@link System#nanoTime} out of
+     * the inner loop.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    private static final Comparator<IndexedRecipe> KEYSET_ORDER = Comparator
+            .comparing(IndexedRecipe::getName, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+            .thenComparingInt(IndexedRecipe::getId);
+
+    private final Logger logger = LoggerFactory.getLogger(RecipeSearchIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final BitSet allRecipes = new BitSet();
+    private final Map<String, BitSet> recipesByType = new HashMap<>();
+    private final Map<Integer, BitSet> recipesByServings = new HashMap<>();
+    private final Map<String, BitSet> recipesByIngredient = new HashMap<>();
+    private final Map<Integer, IndexedRecipe> recipes = new HashMap<>();
+    private final TrigramIndex nameTrigrams = new TrigramIndex();
+    private final TrigramIndex instructionTrigrams = new TrigramIndex();
+    private final Bm25Index relevance = new Bm25Index();
+    private final PantryIndex pantry = new PantryIndex();
+    private final MinHashIndex similarity = new MinHashIndex();
+    private final PrefixTrie nameSuggestions = new PrefixTrie();
+
+    private final boolean enabled;
+    private volatile boolean ready;
+
+    public RecipeSearchIndex(@Value("${recipe.search.index.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true once the index has been fully built and can answer searches
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return recipes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contents of the index. A snapshot in id order is the cheap one to load: the relevance
+     * postings are kept sorted by id and then only ever appended to.
+     */
+    public void rebuild(Collection<IndexedRecipe> snapshot) {
+        lock.writeLock().lock();
+        try {
+            allRecipes.clear();
+            recipesByType.clear();
+            recipesByServings.clear();
+            recipesByIngredient.clear();
+            recipes.clear();
+            nameTrigrams.clear();
+            instructionTrigrams.clear();
+            relevance.clear();
+            pantry.clear();
+            similarity.clear();
+            nameSuggestions.clear();
+            snapshot.forEach(this::add);
+            ready = true;
+            logger.info("Recipe search index built with {} recipes, name suggestions in {} nodes, about {} bytes",
+                    snapshot.size(), nameSuggestions.nodeCount(), nameSuggestions.estimatedBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(IndexedRecipe recipe) {
+        lock.writeLock().lock();
+        try {
+            removeById(recipe.getId());
+            add(recipe);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeById(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Evaluates the request against the bitmaps and returns the ids of the requested page, in page order.
+     * Sorted by {@value #RELEVANCE}, the matches are ranked by BM25 score for the terms of the name and
+     * instruction criteria, best first; without such terms they are sorted by name.
+     */
+    public List<Integer> search(RecipeSearchReq request, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            return pageOfMatches(match(request), request, pageable);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@link #search} together with the {@link #facets} of all its matches, both taken from one evaluation of
+     * the request.
+     */
+    public FacetedPage searchWithFacets(RecipeSearchReq request, Pageable pageable, int topIngredients,
+                                        long deadlineNanos) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(request);
+            return new FacetedPage(pageOfMatches(matches, request, pageable),
+                    count(matches, topIngredients, deadlineNanos));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset variant of {@link #search}: returns up to {@code limit} ids ordered by {@code (name, id)}
+     * that come strictly after the cursor, or from the start when the cursor is null.
+     */
+    public List<Integer> searchAfter(RecipeSearchReq request, PageCursor cursor, int limit) {
+        lock.readLock().lock();
+        try {
+            return matchesAfter(match(request), cursor, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@link #searchAfter} together with the {@link #facets} of all its matches, both taken from one evaluation
+     * of the request.
+     */
+    public FacetedPage searchAfterWithFacets(RecipeSearchReq request, PageCursor cursor, int limit,
+                                             int topIngredients, long deadlineNanos) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = match(request);
+            return new FacetedPage(matchesAfter(matches, cursor, limit),
+                    count(matches, topIngredients, deadlineNanos));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the recipes missing at most {@code maxMissing} of their ingredients from the pantry and returns
+     * the ids of the requested page, fewest missing ingredients first, then by name.
+     */
+    public List<Integer> searchPantry(Collection<Integer> ingredientIds, int maxMissing, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> missing = pantry.match(ingredientIds, maxMissing);
+
+            List<IndexedRecipe> hits = new ArrayList<>(missing.size());
+            missing.keySet().forEach(id -> hits.add(recipes.get(id)));
+            hits.sort(Comparator.<IndexedRecipe>comparingInt(hit -> missing.get(hit.getId()))
+                    .thenComparing(KEYSET_ORDER));
+            return pageOf(hits, pageable);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} recipes most similar to the given one by their ingredients, best first, or
+     * empty when the recipe is not indexed
+     */
+    public Optional<List<SimilarRecipe>> similarTo(int id, int limit) {
+        lock.readLock().lock();
+        try {
+            if (!recipes.containsKey(id)) {
+                return Optional.empty();
+            }
+            List<SimilarRecipe> similar = new ArrayList<>();
+            similarity.similarTo(id, limit).forEach((similarId, estimate) ->
+                    similar.add(new SimilarRecipe(similarId, recipes.get(similarId).getName(), estimate)));
+            return Optional.of(similar);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} recipe names starting with the prefix, ignoring case, shortest first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return nameSuggestions.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int suggestNodeCount() {
+        lock.readLock().lock();
+        try {
+            return nameSuggestions.nodeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long suggestEstimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return nameSuggestions.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the recipes matching the request per type, per servings value and per ingredient in a single pass
+     * over the matches, keeping the {@code topIngredients} most used ingredients. Once {@code deadlineNanos}
+     * (a {@link System#nanoTime} value) has passed the pass stops and returns the partial counts as incomplete.
+     */
+    public SearchFacets facets(RecipeSearchReq request, int topIngredients, long deadlineNanos) {
+        lock.readLock().lock();
+        try {
+            return count(match(request), topIngredients, deadlineNanos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private SearchFacets count(BitSet matches, int topIngredients, long deadlineNanos) {
+        Map<String, Long> types = new TreeMap<>();
+        Map<Integer, Long> servings = new TreeMap<>();
+        Map<String, Long> ingredients = new HashMap<>();
+
+        boolean complete = true;
+        int visited = 0;
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            if (visited++ % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadlineNanos > 0) {
+                complete = false;
+                break;
+            }
+            IndexedRecipe recipe = recipes.get(id);
+            if (recipe.getType() != null) {
+                types.merge(recipe.getType(), 1L, Long::sum);
+            }
+            servings.merge(recipe.getNumberOfServings(), 1L, Long::sum);
+            for (String ingredient : recipe.getIngredientNames()) {
+                ingredients.merge(ingredient, 1L, Long::sum);
+            }
+        }
+
+        Map<String, Long> topCounts = new LinkedHashMap<>();
+        ingredients.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(topIngredients)
+                .forEach(entry -> topCounts.put(entry.getKey(), entry.getValue()));
+        return new SearchFacets(matches.cardinality(), types, servings, topCounts, complete);
+    }
+
+    private BitSet match(RecipeSearchReq request) {
+        BitSet candidates = (BitSet) allRecipes.clone();
+
+        if (request.vegetarian != null) {
+            String type = request.vegetarian ? RecipeType.VEGETARIAN.name() : RecipeType.NON_VEGETARIAN.name();
+            retain(candidates, recipesByType.get(type));
+        }
+
+        if (request.servings != null) {
+            retain(candidates, recipesByServings.get(request.servings));
+        }
+
+        for (String ingredient : request.requiredIngredients()) {
+            retain(candidates, recipesByIngredient.get(IndexedRecipe.normalize(ingredient)));
+        }
+
+        List<String> anyIngredients = request.anyIngredients();
+        if (!anyIngredients.isEmpty()) {
+            BitSet anyOf = new BitSet();
+            for (String ingredient : anyIngredients) {
+                BitSet postings = recipesByIngredient.get(IndexedRecipe.normalize(ingredient));
+                if (postings != null) {
+                    anyOf.or(postings);
+                }
+            }
+            candidates.and(anyOf);
+        }
+
+        if (request.excludeIngredient != null) {
+            for (String ingredient : request.excludeIngredient) {
+                BitSet excluded = recipesByIngredient.get(IndexedRecipe.normalize(ingredient));
+                if (excluded != null) {
+                    candidates.andNot(excluded);
+                }
+            }
+        }
+
+        if (request.name != null) {
+            retainContaining(candidates, nameTrigrams, IndexedRecipe::getNormalizedName, request.name);
+        }
+
+        if (request.instruction != null) {
+            retainContaining(candidates, instructionTrigrams, IndexedRecipe::getInstructions, request.instruction);
+        }
+
+        return candidates;
+    }
+
+    private void retainContaining(BitSet candidates, TrigramIndex trigrams, Function<IndexedRecipe, String> text,
+                                  String value) {
+        String term = IndexedRecipe.normalize(value);
+        trigrams.retainCandidates(candidates, term);
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            String candidate = text.apply(recipes.get(id));
+            if (candidate == null || !candidate.contains(term)) {
+                candidates.clear(id);
+            }
+        }
+    }
+
+    private List<Integer> pageOfMatches(BitSet matches, RecipeSearchReq request, Pageable pageable) {
+        if (pageable.getSort().getOrderFor(RELEVANCE) != null) {
+            return rank(matches, request, pageable);
+        }
+        return page(matches, pageable);
+    }
+
+    private List<Integer> matchesAfter(BitSet matches, PageCursor cursor, int limit) {
+        IndexedRecipe position = cursor != null
+                ? new IndexedRecipe(cursor.getId(), cursor.getName(), null, 0, null, null)
+                : null;
+
+        List<IndexedRecipe> hits = new ArrayList<>();
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            IndexedRecipe hit = recipes.get(id);
+            if (position == null || KEYSET_ORDER.compare(hit, position) > 0) {
+                hits.add(hit);
+            }
+        }
+        hits.sort(KEYSET_ORDER);
+
+        List<Integer> ids = new ArrayList<>(Math.min(limit, hits.size()));
+        for (IndexedRecipe hit : hits.subList(0, Math.min(limit, hits.size()))) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+
+    private List<Integer> rank(BitSet matches, RecipeSearchReq request, Pageable pageable) {
+        Set<String> terms = new LinkedHashSet<>(Bm25Index.tokens(IndexedRecipe.normalize(request.name),
+                IndexedRecipe.normalize(request.instruction)));
+        if (terms.isEmpty()) {
+            return page(matches, pageable.isPaged()
+                    ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("name"))
+                    : Pageable.unpaged(Sort.by("name")));
+        }
+
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE) : 0;
+        int k = pageable.isPaged() ? (int) Math.min((long) from + pageable.getPageSize(), Integer.MAX_VALUE)
+                : Integer.MAX_VALUE;
+        int[] ranked = relevance.top(matches, terms, k);
+
+        List<Integer> ids = new ArrayList<>(Math.max(ranked.length - from, 0));
+        for (int i = from; i < ranked.length; i++) {
+            ids.add(ranked[i]);
+        }
+        return ids;
+    }
+
+    private List<Integer> page(BitSet matches, Pageable pageable) {
+        List<IndexedRecipe> hits = new ArrayList<>(matches.cardinality());
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            hits.add(recipes.get(id));
+        }
+        hits.sort(comparator(pageable.getSort()));
+        return pageOf(hits, pageable);
+    }
+
+    private static List<Integer> pageOf(List<IndexedRecipe> hits, Pageable pageable) {
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), hits.size()) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), hits.size()) : hits.size();
+
+        List<Integer> ids = new ArrayList<>(to - from);
+        for (IndexedRecipe hit : hits.subList(from, to)) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+
+    private static Comparator<IndexedRecipe> comparator(Sort sort) {
+        Sort.Order byName = sort.getOrderFor("name");
+        if (byName == null) {
+            return Comparator.comparingInt(IndexedRecipe::getId);
+        }
+        Comparator<IndexedRecipe> comparator = Comparator.comparing(IndexedRecipe::getName,
+                Comparator.nullsLast(Comparator.naturalOrder()));
+        return byName.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private static void retain(BitSet candidates, BitSet postings) {
+        if (postings == null) {
+            candidates.clear();
+        } else {
+            candidates.and(postings);
+        }
+    }
+
+    private void add(IndexedRecipe recipe) {
+        int id = recipe.getId();
+        recipes.put(id, recipe);
+        allRecipes.set(id);
+        if (recipe.getType() != null) {
+            recipesByType.computeIfAbsent(recipe.getType(), key -> new BitSet()).set(id);
+        }
+        recipesByServings.computeIfAbsent(recipe.getNumberOfServings(), key -> new BitSet()).set(id);
+        for (String ingredient : recipe.getIngredientNames()) {
+            recipesByIngredient.computeIfAbsent(ingredient, key -> new BitSet()).set(id);
+        }
+        nameTrigrams.add(id, recipe.getNormalizedName());
+        instructionTrigrams.add(id, recipe.getInstructions());
+        relevance.add(id, recipe.getNormalizedName(), recipe.getInstructions());
+        pantry.add(id, recipe.getIngredientIds());
+        similarity.add(id, recipe.getIngredientIds());
+        nameSuggestions.add(recipe.getName());
+    }
+
+    private void removeById(int id) {
+        IndexedRecipe existing = recipes.remove(id);
+        if (existing == null) {
+            return;
+        }
+        allRecipes.clear(id);
+        if (existing.getType() != null) {
+            clear(recipesByType, existing.getType(), id);
+        }
+        clear(recipesByServings, existing.getNumberOfServings(), id);
+        for (String ingredient : existing.getIngredientNames()) {
+            clear(recipesByIngredient, ingredient, id);
+        }
+        nameTrigrams.remove(id, existing.getNormalizedName());
+        instructionTrigrams.remove(id, existing.getInstructions());
+        relevance.remove(id, existing.getNormalizedName(), existing.getInstructions());
+        pantry.remove(id, existing.getIngredientIds());
+        similarity.remove(id);
+        nameSuggestions.remove(existing.getName());
+    }
+
+    private static <K> void clear(Map<K, BitSet> postings, K key, int id) {
+        BitSet bitmap = postings.get(key);
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.clear(id);
+        if (bitmap.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+}
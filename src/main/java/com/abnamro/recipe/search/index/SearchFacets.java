@@ -0,0 +1,11 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.Map;
+
+/**
+ * Counts of the recipes matching a search, per recipe type, per servings value and for the most used
+ * ingredients. Incomplete counts cover only the matches visited before the latency budget ran out.
+ */
+public record SearchFacets(long total, Map<String, Long> types, Map<Integer, Long> servings,
+                           Map<String, Long> ingredients, boolean complete) {
+}
@@ -0,0 +1,7 @@
+package com.abnamro.recipe.search.index;
+
+/**
+ * A recipe found similar to another one, with the estimated Jaccard similarity of their ingredient sets.
+ */
+public record SimilarRecipe(int id, String name, double similarity) {
+}
@@ -0,0 +1,76 @@
+package com.abnamro.recipe.search.index;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram postings over one lower-cased text attribute of the indexed recipes.
+ * <p>
+ * A substring query can only match documents that contain every trigram of the query, so intersecting
+ * those postings narrows the candidates to a superset of the matches which the caller then verifies.
+ * Not thread-safe; guarded by the lock of the owning {@link RecipeSearchIndex}.
+ */
+class TrigramIndex {
+    static final int GRAM_LENGTH = 3;
+
+    private final Map<String, BitSet> postings = new HashMap<>();
+
+    void add(int id, String text) {
+        for (String trigram : trigrams(text)) {
+            postings.computeIfAbsent(trigram, key -> new BitSet()).set(id);
+        }
+    }
+
+    void remove(int id, String text) {
+        for (String trigram : trigrams(text)) {
+            BitSet bitmap = postings.get(trigram);
+            if (bitmap == null) {
+                continue;
+            }
+            bitmap.clear(id);
+            if (bitmap.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Removes from the candidates every id that cannot contain the term. Terms shorter than a trigram
+     * leave the candidates untouched.
+     */
+    void retainCandidates(BitSet candidates, String term) {
+        for (String trigram : trigrams(term)) {
+            BitSet bitmap = postings.get(trigram);
+            if (bitmap == null) {
+                candidates.clear();
+                return;
+            }
+            candidates.and(bitmap);
+            if (candidates.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    static Set<String> trigrams(String text) {
+        if (text == null || text.length() < GRAM_LENGTH) {
+            return Set.of();
+        }
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return trigrams;
+    }
+}
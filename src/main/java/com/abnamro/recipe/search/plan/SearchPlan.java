@@ -0,0 +1,61 @@
+package com.abnamro.recipe.search.plan;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * How a recipe search is executed on the database, with the row estimates it was chosen on.
+ *
+ * @param driverIngredients normalized names of the ingredient predicate that drives an
+ *                          {@link Strategy#INDEX_FIRST} plan, empty otherwise
+ * @param estimates         estimated matching recipes per predicate, in request order
+ * @param servedByIndex     whether the in-memory search index answers the search instead, leaving the plan
+ *                          unused
+ */
+public record SearchPlan(Strategy strategy, String driver, List<String> driverIngredients, long estimatedRows,
+                         long totalRows, Map<String, Long> estimates, boolean servedByIndex) {
+
+    public enum Strategy {
+        /**
+         * Resolve the recipe ids of the most selective ingredient through the join table index first, then
+         * evaluate the other predicates on those recipes only.
+         */
+        INDEX_FIRST,
+        /**
+         * Evaluate every recipe row, checking the ingredient predicates, if any, with correlated EXISTS
+         * subqueries.
+         */
+        SCAN
+    }
+
+    /**
+     * The plan reported while the in-memory search index answers searches. Nothing is planned then, so it
+     * has no strategy and no estimates.
+     */
+    public static SearchPlan indexOnly() {
+        return new SearchPlan(null, null, List.of(), 0, 0, Map.of(), true);
+    }
+
+    /**
+     * @return the plan as a single header value, such as
+     * {@code source=database; strategy=INDEX_FIRST; driver=ingredient:saffron; rows=3/1000; estimates=...},
+     * or {@code source=index} when the search index answers
+     */
+    public String describe() {
+        if (servedByIndex) {
+            return "source=index";
+        }
+        StringBuilder description = new StringBuilder("source=database; strategy=").append(strategy);
+        if (driver != null) {
+            description.append("; driver=").append(driver);
+        }
+        description.append("; rows=").append(estimatedRows).append('/').append(totalRows);
+        if (!estimates.isEmpty()) {
+            description.append("; estimates=").append(estimates.entrySet().stream()
+                    .map(estimate -> estimate.getKey() + "=" + estimate.getValue())
+                    .collect(Collectors.joining(",")));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,201 @@
+package com.abnamro.recipe.search.plan;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.RecipeType;
+import com.abnamro.recipe.search.index.IndexedRecipe;
+import com.abnamro.recipe.search.plan.SearchPlan.Strategy;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+
+/**
+ * Chooses how the database executes a {@link RecipeSearchReq}, from per-predicate cardinality statistics.
+ * <p>
+ * The statistics are three grouped counts (per type, per servings value and per ingredient). The recipe
+ * writes are counted into the loaded statistics as they commit, and the counts are reloaded once older than
+ * the configured time to live, which bounds how long changes made elsewhere go unseen. Predicates are assumed
+ * independent, and a substring predicate, which has no statistics, is assumed to keep
+ * {@value #SUBSTRING_SELECTIVITY} of the recipes. The ingredient predicate with the fewest recipes drives an
+ * index-first plan when it has at most {@code index-first-max-rows} recipes; otherwise the recipes table is
+ * scanned, checking the ingredient predicates with semi-joins.
+ */
+@Component
+public class SearchPlanner {
+    static final double SUBSTRING_SELECTIVITY = 0.1;
+
+    private final Logger logger = LoggerFactory.getLogger(SearchPlanner.class);
+
+    private final EntityManager entityManager;
+    private final long indexFirstMaxRows;
+    private final Duration statisticsTtl;
+
+    private volatile SearchStatistics statistics;
+
+    public SearchPlanner(EntityManager entityManager,
+                         @Value("${recipe.search.planner.index-first-max-rows:1000}") long indexFirstMaxRows,
+                         @Value("${recipe.search.planner.statistics-ttl:5m}") Duration statisticsTtl) {
+        this.entityManager = entityManager;
+        this.indexFirstMaxRows = indexFirstMaxRows;
+        this.statisticsTtl = statisticsTtl;
+    }
+
+    public SearchPlan plan(RecipeSearchReq request) {
+        SearchStatistics stats = statistics();
+        long total = stats.total();
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        double selectivity = 1;
+
+        if (request.vegetarian != null) {
+            String type = request.vegetarian ? RecipeType.VEGETARIAN.name() : RecipeType.NON_VEGETARIAN.name();
+            selectivity *= estimate(estimates, "type:" + type, stats.typeCount(type), total);
+        }
+
+        if (request.servings != null) {
+            selectivity *= estimate(estimates, "servings:" + request.servings, stats.servingsCount(request.servings),
+                    total);
+        }
+
+        String driver = null;
+        List<String> driverIngredients = List.of();
+        long driverRows = Long.MAX_VALUE;
+
+        for (String ingredient : normalize(request.requiredIngredients())) {
+            String predicate = "ingredient:" + ingredient;
+            long rows = stats.ingredientCount(ingredient);
+            selectivity *= estimate(estimates, predicate, rows, total);
+            if (rows < driverRows) {
+                driver = predicate;
+                driverIngredients = List.of(ingredient);
+                driverRows = rows;
+            }
+        }
+
+        List<String> anyOf = normalize(request.anyIngredients());
+        if (!anyOf.isEmpty()) {
+            String predicate = "anyIngredient:" + String.join("|", anyOf);
+            long rows = Math.min(total, anyOf.stream().mapToLong(stats::ingredientCount).sum());
+            selectivity *= estimate(estimates, predicate, rows, total);
+            if (rows < driverRows) {
+                driver = predicate;
+                driverIngredients = anyOf;
+                driverRows = rows;
+            }
+        }
+
+        List<String> noneOf = normalize(request.excludeIngredient);
+        if (!noneOf.isEmpty()) {
+            long excluded = Math.min(total, noneOf.stream().mapToLong(stats::ingredientCount).sum());
+            selectivity *= estimate(estimates, "noIngredient:" + String.join("|", noneOf), total - excluded, total);
+        }
+
+        if (request.name != null) {
+            selectivity *= estimate(estimates, "name:" + request.name,
+                    Math.round(total * SUBSTRING_SELECTIVITY), total);
+        }
+
+        if (request.instruction != null) {
+            selectivity *= estimate(estimates, "instruction:" + request.instruction,
+                    Math.round(total * SUBSTRING_SELECTIVITY), total);
+        }
+
+        long estimatedRows = Math.round(total * selectivity);
+        if (driver == null || driverRows > indexFirstMaxRows) {
+            return new SearchPlan(Strategy.SCAN, null, List.of(), estimatedRows, total, estimates, false);
+        }
+        return new SearchPlan(Strategy.INDEX_FIRST, driver, driverIngredients, estimatedRows, total, estimates, false);
+    }
+
+    /**
+     * @return the current statistics, reloading them first when they are missing or older than the time to live
+     */
+    public SearchStatistics statistics() {
+        SearchStatistics current = statistics;
+        if (current == null || System.nanoTime() - current.collectedAtNanos() > statisticsTtl.toNanos()) {
+            synchronized (this) {
+                current = statistics;
+                if (current == null || System.nanoTime() - current.collectedAtNanos() > statisticsTtl.toNanos()) {
+                    current = collect();
+                    statistics = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drops the statistics, so the next plan reloads them.
+     */
+    public void invalidate() {
+        statistics = null;
+    }
+
+    /**
+     * Counts a committed recipe into the loaded statistics. Nothing is loaded when there are none yet.
+     */
+    public void recipeAdded(IndexedRecipe recipe) {
+        SearchStatistics current = statistics;
+        if (current != null) {
+            current.count(recipe, 1);
+        }
+    }
+
+    /**
+     * Counts a deleted recipe, or the old state of an updated one, out of the loaded statistics.
+     */
+    public void recipeRemoved(IndexedRecipe recipe) {
+        SearchStatistics current = statistics;
+        if (current != null) {
+            current.count(recipe, -1);
+        }
+    }
+
+    private SearchStatistics collect() {
+        long total = entityManager.createQuery("select count(r) from Recipe r", Long.class).getSingleResult();
+        Map<String, Long> types = counts("select r.type, count(r) from Recipe r where r.type is not null "
+                + "group by r.type", String.class);
+        Map<Integer, Long> servings = counts("select r.numberOfServings, count(r) from Recipe r "
+                + "group by r.numberOfServings", Integer.class);
+        Map<String, Long> ingredients = counts("select i.normalizedName, count(r) from Recipe r "
+                + "join r.recipeIngredients i group by i.normalizedName", String.class);
+
+        logger.info("Search statistics collected: {} recipes, {} types, {} servings values, {} ingredients",
+                total, types.size(), servings.size(), ingredients.size());
+        return new SearchStatistics(total, types, servings, ingredients, System.nanoTime());
+    }
+
+    private <K> Map<K, Long> counts(String jpql, Class<K> keyType) {
+        Map<K, Long> counts = new HashMap<>();
+        for (Tuple row : entityManager.createQuery(jpql, Tuple.class).getResultList()) {
+            counts.put(row.get(0, keyType), row.get(1, Long.class));
+        }
+        return counts;
+    }
+
+    /**
+     * Records the estimate of one predicate and returns its selectivity.
+     */
+    private static double estimate(Map<String, Long> estimates, String predicate, long rows, long total) {
+        estimates.put(predicate, rows);
+        return total > 0 ? (double) rows / total : 0;
+    }
+
+    private static List<String> normalize(List<String> names) {
+        if (names == null) {
+            return List.of();
+        }
+        return names.stream().filter(Objects::nonNull).map(Ingredient::normalize).distinct().toList();
+    }
+}
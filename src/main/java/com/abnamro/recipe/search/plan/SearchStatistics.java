@@ -0,0 +1,83 @@
+package com.abnamro.recipe.search.plan;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.abnamro.recipe.search.index.IndexedRecipe;
+
+/**
+ * Cardinality statistics of the recipe search predicates: the number of recipes per type, per servings value
+ * and per normalized ingredient name, loaded at {@code collectedAtNanos} (a {@link System#nanoTime} value).
+ * <p>
+ * Committed writes are counted in as they happen, so the counts stay current between loads without another
+ * scan. Counts are updated one at a time, so a plan may see a write half applied; they are estimates.
+ */
+public final class SearchStatistics {
+    private final AtomicLong total;
+    private final Map<String, Long> typeCounts;
+    private final Map<Integer, Long> servingsCounts;
+    private final Map<String, Long> ingredientCounts;
+    private final long collectedAtNanos;
+
+    public SearchStatistics(long total, Map<String, Long> typeCounts, Map<Integer, Long> servingsCounts,
+                            Map<String, Long> ingredientCounts, long collectedAtNanos) {
+        this.total = new AtomicLong(total);
+        this.typeCounts = new ConcurrentHashMap<>(typeCounts);
+        this.servingsCounts = new ConcurrentHashMap<>(servingsCounts);
+        this.ingredientCounts = new ConcurrentHashMap<>(ingredientCounts);
+        this.collectedAtNanos = collectedAtNanos;
+    }
+
+    public long total() {
+        return total.get();
+    }
+
+    public Map<String, Long> typeCounts() {
+        return Collections.unmodifiableMap(typeCounts);
+    }
+
+    public Map<Integer, Long> servingsCounts() {
+        return Collections.unmodifiableMap(servingsCounts);
+    }
+
+    public Map<String, Long> ingredientCounts() {
+        return Collections.unmodifiableMap(ingredientCounts);
+    }
+
+    public long collectedAtNanos() {
+        return collectedAtNanos;
+    }
+
+    public long typeCount(String type) {
+        return typeCounts.getOrDefault(type, 0L);
+    }
+
+    public long servingsCount(int servings) {
+        return servingsCounts.getOrDefault(servings, 0L);
+    }
+
+    public long ingredientCount(String normalizedName) {
+        return ingredientCounts.getOrDefault(normalizedName, 0L);
+    }
+
+    /**
+     * Counts the recipe in with a {@code delta} of 1, or out with -1.
+     */
+    void count(IndexedRecipe recipe, long delta) {
+        total.addAndGet(delta);
+        if (recipe.getType() != null) {
+            add(typeCounts, recipe.getType(), delta);
+        }
+        add(servingsCounts, recipe.getNumberOfServings(), delta);
+        recipe.getIngredientNames().forEach(name -> add(ingredientCounts, name, delta));
+    }
+
+    private static <K> void add(Map<K, Long> counts, K key, long delta) {
+        counts.compute(key, (ignored, count) -> {
+            long updated = (count != null ? count : 0) + delta;
+            return updated > 0 ? updated : null;
+        });
+    }
+}
@@ -1,10 +1,42 @@
-
 package com.abnamro.recipe.search.request;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 public class RecipeSearchReq {
     public Boolean vegetarian;
     public Integer servings;
     public String includeIngredient;
-    public String excludeIngredient;
+    public List<String> includeAll;
+    public List<String> includeAny;
+    public List<String> excludeIngredient;
     public String instruction;
+    public String name;
+
+    /**
+     * @return the ingredients a recipe must all have: {@link #includeIngredient} and every {@link #includeAll}
+     * name, as given
+     */
+    public List<String> requiredIngredients() {
+        List<String> required = new ArrayList<>();
+        if (includeIngredient != null) {
+            required.add(includeIngredient);
+        }
+        if (includeAll != null) {
+            includeAll.stream().filter(Objects::nonNull).forEach(required::add);
+        }
+        return required;
+    }
+
+    /**
+     * @return the ingredients a recipe must have at least one of: the {@link #includeAny} names, as given,
+     * without null or blank ones; empty when there is no such filter, which an all-blank list also counts as
+     */
+    public List<String> anyIngredients() {
+        if (includeAny == null) {
+            return List.of();
+        }
+        return includeAny.stream().filter(name -> name != null && !name.isBlank()).toList();
+    }
 }
@@ -3,8 +3,10 @@ package com.abnamro.recipe.search.request;
 
 import org.springframework.data.jpa.domain.Specification;
 
+import com.abnamro.recipe.config.DatabaseAttributes;
 import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.pagination.PageCursor;
 
 import jakarta.persistence.criteria.*;
 import java.util.*;
@@ -13,7 +15,6 @@ public class RecipeSpecification {
 
     public static Specification<Recipe> build(RecipeSearchReq r) {
         return (root, query, cb) -> {
-            query.distinct(true);
             List<Predicate> predicates = new ArrayList<>();
 
             if (r.vegetarian != null) {
@@ -30,13 +31,65 @@ public class RecipeSpecification {
                         "%" + r.instruction.toLowerCase() + "%"));
             }
 
-            if (r.includeIngredient != null) {
-                Join<Recipe, Ingredient> join = root.join("recipeIngredients");
-                predicates.add(cb.equal(cb.lower(join.get("name")),
-                        r.includeIngredient.toLowerCase()));
+            if (r.name != null) {
+                predicates.add(cb.like(cb.lower(root.get("name")),
+                        "%" + r.name.toLowerCase() + "%"));
+            }
+
+            for (String ingredient : normalize(r.requiredIngredients())) {
+                predicates.add(cb.exists(ingredientSubquery(root, query, cb, List.of(ingredient))));
+            }
+
+            List<String> anyOf = normalize(r.anyIngredients());
+            if (!anyOf.isEmpty()) {
+                predicates.add(cb.exists(ingredientSubquery(root, query, cb, anyOf)));
+            }
+
+            List<String> noneOf = normalize(r.excludeIngredient);
+            if (!noneOf.isEmpty()) {
+                predicates.add(cb.not(cb.exists(ingredientSubquery(root, query, cb, noneOf))));
             }
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Restricts the recipes to the given ids, resolved beforehand by an index-first plan.
+     */
+    public static Specification<Recipe> idIn(Collection<Integer> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Keyset predicate {@code (name, id) > (cursor.name, cursor.id)} matching the {@code name, id} ordering.
+     */
+    public static Specification<Recipe> after(PageCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.<String>get("name"), cursor.getName()),
+                cb.and(cb.equal(root.get("name"), cursor.getName()),
+                        cb.greaterThan(root.<Integer>get("id"), cursor.getId())));
+    }
+
+    /**
+     * Correlated subquery selecting the join rows of the outer recipe whose ingredient has one of the given
+     * normalized names. Used as a semi-join or anti-join, so ingredient criteria never multiply the outer rows
+     * and the query needs no DISTINCT, however many ingredients a recipe has.
+     */
+    private static Subquery<Integer> ingredientSubquery(Root<Recipe> root, CriteriaQuery<?> query,
+                                                        CriteriaBuilder cb, List<String> normalizedNames) {
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<Recipe> correlated = subquery.correlate(root);
+        Join<Recipe, Ingredient> ingredient = correlated.join(DatabaseAttributes.JOINED_TABLE_NAME);
+
+        return subquery.select(ingredient.get("id"))
+                .where(ingredient.get("normalizedName").in(normalizedNames));
+    }
+
+    private static List<String> normalize(List<String> names) {
+        if (names == null) {
+            return List.of();
+        }
+        return names.stream().filter(Objects::nonNull).map(Ingredient::normalize).distinct().toList();
+    }
 }
@@ -0,0 +1,111 @@
+package com.abnamro.recipe.search.suggest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ingredient names in a {@link PrefixTrie}, answering typeahead requests without touching the database.
+ * <p>
+ * Built once at startup and kept current on create and delete. The names are also kept by id, so a delete
+ * only needs the id of the ingredient.
+ */
+@Component
+public class IngredientSuggestIndex {
+    private final Logger logger = LoggerFactory.getLogger(IngredientSuggestIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final PrefixTrie names = new PrefixTrie();
+    private final Map<Integer, String> namesById = new HashMap<>();
+
+    private volatile boolean ready;
+
+    /**
+     * @return true once the index has been fully built and can answer suggestions
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void rebuild(Map<Integer, String> snapshot) {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            namesById.clear();
+            snapshot.forEach(this::add);
+            ready = true;
+            logger.info("Ingredient suggest index built with {} names in {} nodes, about {} bytes",
+                    names.size(), names.nodeCount(), names.estimatedBytes());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(int id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeById(id);
+            add(id, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeById(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} ingredient names starting with the prefix, ignoring case, shortest first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return names.suggest(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return names.nodeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return names.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(int id, String name) {
+        namesById.put(id, name);
+        names.add(name);
+    }
+
+    private void removeById(int id) {
+        String existing = namesById.remove(id);
+        if (existing != null) {
+            names.remove(existing);
+        }
+    }
+}
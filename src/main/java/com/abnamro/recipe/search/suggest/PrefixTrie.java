@@ -0,0 +1,211 @@
+package com.abnamro.recipe.search.suggest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive prefix trie over names, for typeahead suggestions.
+ * <p>
+ * Every node keeps its children in two parallel arrays sorted by character instead of a map, which keeps a
+ * node at a few dozen bytes. Suggestions are collected breadth first below the node of the prefix, so the
+ * shortest completions come first and names of equal length come in alphabetical order. The walk stops as
+ * soon as it has enough names and never visits the rest of the subtree. Not thread-safe.
+ */
+public final class PrefixTrie {
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final String[] NO_NAMES = new String[0];
+
+    /**
+     * Rough sizes on a 64-bit JVM with compressed references: object and array headers, references and chars.
+     */
+    private static final int OBJECT_HEADER_BYTES = 12;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int STRING_BYTES = 24;
+
+    private Node root = new Node();
+    private int nodeCount = 1;
+    private int size;
+
+    public void add(String name) {
+        if (name == null) {
+            return;
+        }
+        Node node = root;
+        for (char label : normalize(name).toCharArray()) {
+            int index = Arrays.binarySearch(node.labels, label);
+            if (index < 0) {
+                node.insertChild(-index - 1, label, new Node());
+                nodeCount++;
+                index = -index - 1;
+            }
+            node = node.children[index];
+        }
+        if (node.addName(name)) {
+            size++;
+        }
+    }
+
+    public void remove(String name) {
+        if (name != null && remove(root, normalize(name), 0, name)) {
+            size--;
+        }
+    }
+
+    public void clear() {
+        root = new Node();
+        nodeCount = 1;
+        size = 0;
+    }
+
+    /**
+     * @return up to {@code limit} names starting with the prefix, ignoring case, shortest first and then in
+     * alphabetical order
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Node node = root;
+        for (char label : normalize(prefix).toCharArray()) {
+            int index = Arrays.binarySearch(node.labels, label);
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+        }
+
+        List<String> suggestions = new ArrayList<>(Math.min(limit, size));
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(node);
+        while (!queue.isEmpty() && suggestions.size() < limit) {
+            Node next = queue.poll();
+            for (String name : next.names) {
+                if (suggestions.size() == limit) {
+                    break;
+                }
+                suggestions.add(name);
+            }
+            queue.addAll(Arrays.asList(next.children));
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return an estimate of the heap used by the trie, including the stored names
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            bytes += OBJECT_HEADER_BYTES + 3L * REFERENCE_BYTES;
+            bytes += node.labels.length == 0 ? 0 : ARRAY_HEADER_BYTES + 2L * node.labels.length;
+            bytes += node.children.length == 0 ? 0 : ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * node.children.length;
+            if (node.names.length > 0) {
+                bytes += ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * node.names.length;
+                for (String name : node.names) {
+                    bytes += STRING_BYTES + ARRAY_HEADER_BYTES + name.length();
+                }
+            }
+            queue.addAll(Arrays.asList(node.children));
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes the name below the node and prunes the nodes left without names or children.
+     *
+     * @return true when the name was found
+     */
+    private boolean remove(Node node, String key, int depth, String name) {
+        if (depth == key.length()) {
+            return node.removeName(name);
+        }
+        int index = Arrays.binarySearch(node.labels, key.charAt(depth));
+        if (index < 0) {
+            return false;
+        }
+        Node child = node.children[index];
+        boolean removed = remove(child, key, depth + 1, name);
+        if (removed && child.names.length == 0 && child.children.length == 0) {
+            node.removeChild(index);
+            nodeCount--;
+        }
+        return removed;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private String[] names = NO_NAMES;
+
+        void insertChild(int index, char label, Node child) {
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newLabels[index] = label;
+            newChildren[index] = child;
+            System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        void removeChild(int index) {
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        /**
+         * Names differing only in case end at the same node; they are kept sorted.
+         */
+        boolean addName(String name) {
+            int index = Arrays.binarySearch(names, name);
+            if (index >= 0) {
+                return false;
+            }
+            String[] newNames = new String[names.length + 1];
+            int at = -index - 1;
+            System.arraycopy(names, 0, newNames, 0, at);
+            newNames[at] = name;
+            System.arraycopy(names, at, newNames, at + 1, names.length - at);
+            names = newNames;
+            return true;
+        }
+
+        boolean removeName(String name) {
+            int index = Arrays.binarySearch(names, name);
+            if (index < 0) {
+                return false;
+            }
+            String[] newNames = new String[names.length - 1];
+            System.arraycopy(names, 0, newNames, 0, index);
+            System.arraycopy(names, index + 1, newNames, index, names.length - index - 1);
+            names = newNames;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.abnamro.recipe.search.suggest;
+
+import org.springframework.stereotype.Component;
+
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the footprint of the suggestion tries as {@code suggest.index.nodes} and
+ * {@code suggest.index.bytes} gauges, tagged with the index name. The byte count is an estimate that is
+ * recomputed on every read of the gauge.
+ */
+@Component
+public class SuggestIndexMetrics implements MeterBinder {
+    private final RecipeSearchIndex recipeSearchIndex;
+    private final IngredientSuggestIndex ingredientSuggestIndex;
+
+    public SuggestIndexMetrics(RecipeSearchIndex recipeSearchIndex, IngredientSuggestIndex ingredientSuggestIndex) {
+        this.recipeSearchIndex = recipeSearchIndex;
+        this.ingredientSuggestIndex = ingredientSuggestIndex;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("suggest.index.nodes", recipeSearchIndex, RecipeSearchIndex::suggestNodeCount)
+                .tag("index", "recipe")
+                .description("Nodes of the recipe name trie")
+                .register(registry);
+        Gauge.builder("suggest.index.bytes", recipeSearchIndex, RecipeSearchIndex::suggestEstimatedBytes)
+                .tag("index", "recipe")
+                .description("Estimated heap used by the recipe name trie")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("suggest.index.nodes", ingredientSuggestIndex, IngredientSuggestIndex::nodeCount)
+                .tag("index", "ingredient")
+                .description("Nodes of the ingredient name trie")
+                .register(registry);
+        Gauge.builder("suggest.index.bytes", ingredientSuggestIndex, IngredientSuggestIndex::estimatedBytes)
+                .tag("index", "ingredient")
+                .description("Estimated heap used by the ingredient name trie")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
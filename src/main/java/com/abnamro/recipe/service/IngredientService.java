@@ -1,17 +1,41 @@
 package com.abnamro.recipe.service;
 
+import static com.abnamro.recipe.config.ReadReplicaRoutingDataSource.onPrimary;
+import static com.abnamro.recipe.service.TransactionCallbacks.afterCommit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.abnamro.recipe.config.DatabaseAttributes;
 import com.abnamro.recipe.config.MessageProvider;
 import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.exception.NotFoundException;
+import com.abnamro.recipe.pagination.PageCursor;
 import com.abnamro.recipe.repository.IngredientRepository;
+import com.abnamro.recipe.response.BulkItemResponse;
+import com.abnamro.recipe.response.CursorPageResponse;
+import com.abnamro.recipe.response.IngredientResponse;
+import com.abnamro.recipe.search.suggest.IngredientSuggestIndex;
+import com.abnamro.recipe.validator.BulkRequestValidator;
 import com.abnamro.request.CreateIngredientRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import jakarta.persistence.EntityManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -22,9 +46,33 @@ public class IngredientService {
 
     private final MessageProvider messageProvider;
 
-    public IngredientService(IngredientRepository ingredientRepository, MessageProvider messageProvider) {
+    private final BulkRequestValidator bulkRequestValidator;
+
+    private final EntityManager entityManager;
+
+    private final Cache<Integer, IngredientResponse> ingredientCache;
+
+    private final IngredientSuggestIndex suggestIndex;
+
+    public IngredientService(IngredientRepository ingredientRepository, MessageProvider messageProvider,
+                             BulkRequestValidator bulkRequestValidator, EntityManager entityManager,
+                             Cache<Integer, IngredientResponse> ingredientCache, IngredientSuggestIndex suggestIndex) {
         this.ingredientRepository = ingredientRepository;
         this.messageProvider = messageProvider;
+        this.bulkRequestValidator = bulkRequestValidator;
+        this.entityManager = entityManager;
+        this.ingredientCache = ingredientCache;
+        this.suggestIndex = suggestIndex;
+    }
+
+    /**
+     * Loads every ingredient name into the suggest index once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildSuggestIndex() {
+        suggestIndex.rebuild(ingredientRepository.findResponsePage(Pageable.unpaged()).stream()
+                .collect(Collectors.toMap(IngredientResponse::getId, IngredientResponse::getName)));
     }
 
     public Integer create(CreateIngredientRequest request) {
@@ -33,25 +81,130 @@ public class IngredientService {
         ingredient.setIngredientName(request.getName());
 
         Ingredient createdIngredient = ingredientRepository.save(ingredient);
+        afterCommit(() -> suggestIndex.put(createdIngredient.getId(), createdIngredient.getName()));
         return createdIngredient.getId();
     }
 
+    /**
+     * Creates every valid item of the batch. Items are validated and checked for duplicate names up front,
+     * then inserted in JDBC-batch sized chunks, flushing and clearing the persistence context per chunk.
+     */
+    public List<BulkItemResponse> createAll(List<CreateIngredientRequest> requests) {
+        Map<Integer, String> errors = bulkRequestValidator.validate(requests);
+        bulkRequestValidator.rejectDuplicateNames(requests, errors, CreateIngredientRequest::getName,
+                ingredientRepository::findExistingNames, "ingredient.alreadyExists");
+
+        Map<Integer, String> created = new HashMap<>();
+        BulkItemResponse[] results = new BulkItemResponse[requests.size()];
+        errors.forEach((index, message) -> results[index] = BulkItemResponse.rejected(index, message));
+
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (!errors.containsKey(i)) {
+                accepted.add(i);
+            }
+        }
+
+        for (int from = 0; from < accepted.size(); from += DatabaseAttributes.ID_ALLOCATION_SIZE) {
+            List<Integer> chunk = accepted.subList(from, Math.min(from + DatabaseAttributes.ID_ALLOCATION_SIZE, accepted.size()));
+            List<Ingredient> ingredients = new ArrayList<>(chunk.size());
+            for (Integer index : chunk) {
+                Ingredient ingredient = new Ingredient();
+                ingredient.setIngredientName(requests.get(index).getName());
+                ingredients.add(ingredient);
+            }
+
+            ingredientRepository.saveAllAndFlush(ingredients);
+            entityManager.clear();
+
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = BulkItemResponse.created(chunk.get(i), ingredients.get(i).getId());
+                created.put(ingredients.get(i).getId(), ingredients.get(i).getName());
+            }
+        }
+        afterCommit(() -> created.forEach(suggestIndex::put));
+        return Arrays.asList(results);
+    }
 
+    /**
+     * Resolves all ids with a single query. Repeated ids are only looked up once and every unknown id is
+     * reported in one {@link NotFoundException}.
+     */
     public Set<Ingredient> getIngredientsByIds(List<Integer> ingredientIds) {
-        return ingredientIds.stream()
-                .map(this::findById)
-                .collect(Collectors.toSet());
+        Set<Integer> uniqueIds = ingredientIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (uniqueIds.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        Set<Ingredient> ingredients = new HashSet<>(ingredientRepository.findAllById(uniqueIds));
+        if (ingredients.size() != uniqueIds.size()) {
+            Set<Integer> foundIds = ingredients.stream().map(Ingredient::getId).collect(Collectors.toSet());
+            String missingIds = uniqueIds.stream()
+                    .filter(id -> !foundIds.contains(id))
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(", "));
+            throw new NotFoundException(messageProvider.getMessage("ingredient.notFoundByIds", List.of(missingIds)));
+        }
+        return ingredients;
     }
 
-    public Ingredient findById(int id) {
-        return ingredientRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException(messageProvider.getMessage("ingredient.notFound")));
+    /**
+     * @return the names of the ingredients that exist among the given ids, resolved with a single query
+     */
+    public Map<Integer, String> findNamesByIds(Collection<Integer> ingredientIds) {
+        if (ingredientIds.isEmpty()) {
+            return Map.of();
+        }
+        return ingredientRepository.findAllById(ingredientIds).stream()
+                .collect(Collectors.toMap(Ingredient::getId, Ingredient::getName));
+    }
+
+    /**
+     * Served from the near-cache; only misses reach the database, and they read the primary: a lagging replica
+     * would put a stale ingredient in the cache.
+     */
+    @Transactional(readOnly = true)
+    public IngredientResponse findById(int id) {
+        return ingredientCache.get(id, key -> onPrimary(() -> ingredientRepository.findById(key))
+                .map(IngredientResponse::new)
+                .orElseThrow(() -> new NotFoundException(messageProvider.getMessage("ingredient.notFound"))));
     }
 
-    public List<Ingredient> list(int page, int size) {
+    @Transactional(readOnly = true)
+    public List<IngredientResponse> list(int page, int size) {
         Pageable pageRequest
                 = PageRequest.of(page, size);
-        return ingredientRepository.findAll(pageRequest).getContent();
+        return ingredientRepository.findResponsePage(pageRequest);
+    }
+
+    /**
+     * Up to {@code limit} ingredient names starting with the prefix, ignoring case, shortest first. Served from
+     * the suggest index, or from a prefix query on the normalized name while it is not built yet.
+     */
+    @Transactional(readOnly = true)
+    public List<String> suggestNames(String prefix, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException(messageProvider.getMessage("pageSize.invalid"));
+        }
+        if (suggestIndex.isReady()) {
+            return suggestIndex.suggest(prefix, limit);
+        }
+        return ingredientRepository.findNamesStartingWith(Ingredient.normalize(prefix), PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageResponse<IngredientResponse> listAfter(String after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(messageProvider.getMessage("pageSize.invalid"));
+        }
+        int lastId = after != null ? PageCursor.decode(after, messageProvider.getMessage("cursor.invalid")).getId() : 0;
+        Slice<Ingredient> slice = ingredientRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, size));
+
+        List<IngredientResponse> items = slice.getContent().stream().map(IngredientResponse::new).toList();
+        String nextCursor = slice.hasNext() ? PageCursor.of(items.get(items.size() - 1).getId()).encode() : null;
+        return new CursorPageResponse<>(items, nextCursor);
     }
 
     public void delete(int id) {
@@ -59,5 +212,9 @@ public class IngredientService {
             throw new NotFoundException(messageProvider.getMessage("ingredient.notFound"));
         }
         ingredientRepository.deleteById(id);
+        afterCommit(() -> {
+            ingredientCache.invalidate(id);
+            suggestIndex.remove(id);
+        });
     }
 }
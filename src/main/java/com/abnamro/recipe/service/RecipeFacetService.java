@@ -0,0 +1,158 @@
+package com.abnamro.recipe.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.abnamro.recipe.config.DatabaseAttributes;
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.response.SearchFacetsResponse;
+import com.abnamro.recipe.pagination.PageCursor;
+import com.abnamro.recipe.search.index.FacetedPage;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+import com.abnamro.recipe.search.index.SearchFacets;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.search.request.RecipeSpecification;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Facet counts for the current search filters, so a search page needs one call for all its facets. The
+ * searches of {@link RecipeService} count them alongside their results from the same match set or criteria.
+ * <p>
+ * Counted in one pass over the matches of the in-memory search index, stopped at the latency budget. Without
+ * the index two grouped queries do the counting. A running query cannot be held to the budget there: JDBC
+ * query timeouts are whole seconds, so each query only gets the budget rounded up to a second as a guard
+ * against runaway scans. The budget is checked between the two queries instead; once the type and servings
+ * counts have used it up, the ingredient counts are skipped and the facets are reported incomplete.
+ */
+@Service
+@Transactional(readOnly = true)
+public class RecipeFacetService {
+	/**
+	 * Query timeout in seconds, as Hibernate passes it to the JDBC statement.
+	 */
+	private static final String QUERY_TIMEOUT_HINT = "org.hibernate.timeout";
+
+	private final RecipeSearchIndex searchIndex;
+	private final EntityManager entityManager;
+	private final Duration budget;
+	private final int topIngredients;
+
+	public RecipeFacetService(RecipeSearchIndex searchIndex, EntityManager entityManager,
+			@Value("${recipe.search.facets.budget:100ms}") Duration budget,
+			@Value("${recipe.search.facets.top-ingredients:10}") int topIngredients) {
+		this.searchIndex = searchIndex;
+		this.entityManager = entityManager;
+		this.budget = budget;
+		this.topIngredients = topIngredients;
+	}
+
+	public SearchFacetsResponse getFacets(RecipeSearchReq request) {
+		if (searchIndex.isReady()) {
+			return toResponse(searchIndex.facets(request, topIngredients, deadline()));
+		}
+		return countFacets(RecipeSpecification.build(request));
+	}
+
+	/**
+	 * A page of the index search with the facets of all its matches, see
+	 * {@link RecipeSearchIndex#searchWithFacets}.
+	 */
+	FacetedPage searchIndex(RecipeSearchReq request, Pageable pageable) {
+		return searchIndex.searchWithFacets(request, pageable, topIngredients, deadline());
+	}
+
+	/**
+	 * A keyset page of the index search with the facets of all its matches, see
+	 * {@link RecipeSearchIndex#searchAfterWithFacets}.
+	 */
+	FacetedPage searchIndexAfter(RecipeSearchReq request, PageCursor cursor, int limit) {
+		return searchIndex.searchAfterWithFacets(request, cursor, limit, topIngredients, deadline());
+	}
+
+	static SearchFacetsResponse toResponse(SearchFacets facets) {
+		return new SearchFacetsResponse(facets.total(), facets.types(), facets.servings(), facets.ingredients(),
+				facets.complete());
+	}
+
+	/**
+	 * The facets of a search that matches nothing.
+	 */
+	static SearchFacetsResponse noMatches() {
+		return new SearchFacetsResponse(0, Map.of(), Map.of(), Map.of(), true);
+	}
+
+	/**
+	 * Counts the facets of the recipes matching the criteria with the grouped queries.
+	 */
+	SearchFacetsResponse countFacets(Specification<Recipe> specification) {
+		long deadline = deadline();
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+		CriteriaQuery<Tuple> byTypeAndServings = cb.createTupleQuery();
+		Root<Recipe> recipe = byTypeAndServings.from(Recipe.class);
+		Expression<String> type = recipe.get("type");
+		Expression<Integer> servings = recipe.get("numberOfServings");
+		byTypeAndServings.multiselect(type, servings, cb.count(recipe))
+				.where(specification.toPredicate(recipe, byTypeAndServings, cb))
+				.groupBy(type, servings);
+
+		long total = 0;
+		Map<String, Long> types = new TreeMap<>();
+		Map<Integer, Long> servingCounts = new TreeMap<>();
+		for (Tuple row : withBudget(entityManager.createQuery(byTypeAndServings)).getResultList()) {
+			long count = row.get(2, Long.class);
+			total += count;
+			if (row.get(0) != null) {
+				types.merge(row.get(0, String.class), count, Long::sum);
+			}
+			servingCounts.merge(row.get(1, Integer.class), count, Long::sum);
+		}
+		if (System.nanoTime() >= deadline) {
+			return new SearchFacetsResponse(total, types, servingCounts, Map.of(), false);
+		}
+
+		CriteriaQuery<Tuple> byIngredient = cb.createTupleQuery();
+		Root<Recipe> withIngredient = byIngredient.from(Recipe.class);
+		Join<Recipe, Ingredient> ingredient = withIngredient.join(DatabaseAttributes.JOINED_TABLE_NAME);
+		Expression<String> name = ingredient.get("normalizedName");
+		Expression<Long> count = cb.count(withIngredient);
+		byIngredient.multiselect(name, count)
+				.where(specification.toPredicate(withIngredient, byIngredient, cb))
+				.groupBy(name)
+				.orderBy(cb.desc(count), cb.asc(name));
+
+		Map<String, Long> ingredients = new LinkedHashMap<>();
+		List<Tuple> rows = withBudget(entityManager.createQuery(byIngredient)).setMaxResults(topIngredients)
+				.getResultList();
+		rows.forEach(row -> ingredients.put(row.get(0, String.class), row.get(1, Long.class)));
+
+		return new SearchFacetsResponse(total, types, servingCounts, ingredients, true);
+	}
+
+	private long deadline() {
+		return System.nanoTime() + budget.toNanos();
+	}
+
+	private <T> TypedQuery<T> withBudget(TypedQuery<T> query) {
+		long seconds = Math.max(1, (budget.toMillis() + 999) / 1000);
+		return query.setHint(QUERY_TIMEOUT_HINT, (int) Math.min(seconds, Integer.MAX_VALUE));
+	}
+}
@@ -0,0 +1,56 @@
+package com.abnamro.recipe.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.abnamro.recipe.concurrent.SingleFlight;
+import com.abnamro.recipe.response.RecipeResponse;
+import com.abnamro.recipe.response.RecipeSearchResponse;
+import com.abnamro.recipe.search.cache.SearchResultCache;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Front of the hot {@link RecipeService} reads: identical concurrent calls share one execution, and so one
+ * pooled connection. Deliberately not transactional, so waiting callers hold no connection.
+ */
+@Service
+public class RecipeReadCoalescer {
+	private final RecipeService recipeService;
+	private final SearchResultCache searchCache;
+
+	private final SingleFlight<Integer, RecipeResponse> recipeById;
+	private final SingleFlight<List<Integer>, List<RecipeResponse>> recipeList;
+	private final SingleFlight<SearchResultCache.SearchKey, List<RecipeSearchResponse>> search;
+
+	public RecipeReadCoalescer(RecipeService recipeService, SearchResultCache searchCache, MeterRegistry meterRegistry,
+			@Value("${recipe.coalescing.wait-timeout:5s}") Duration waitTimeout) {
+		this.recipeService = recipeService;
+		this.searchCache = searchCache;
+		this.recipeById = new SingleFlight<>("getRecipeById", waitTimeout, meterRegistry);
+		this.recipeList = new SingleFlight<>("getRecipeList", waitTimeout, meterRegistry);
+		this.search = new SingleFlight<>("searchByCriteria", waitTimeout, meterRegistry);
+	}
+
+	public RecipeResponse getRecipeById(int id) {
+		return recipeById.execute(id, () -> recipeService.getRecipeById(id));
+	}
+
+	public List<RecipeResponse> getRecipeList(int page, int size) {
+		return recipeList.execute(List.of(page, size), () -> recipeService.getRecipeList(page, size));
+	}
+
+	/**
+	 * Requests are matched on their canonical form within the current search generation, so a call never
+	 * joins a search that started before the last committed write.
+	 */
+	public List<RecipeSearchResponse> searchByCriteria(RecipeSearchReq request, Pageable pageable) {
+		return search.execute(searchCache.keyOf(request, pageable),
+				() -> recipeService.SearchByCriteria(request, pageable));
+	}
+}
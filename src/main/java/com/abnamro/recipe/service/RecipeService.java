@@ -1,25 +1,67 @@
 package com.abnamro.recipe.service;
 
+import static com.abnamro.recipe.config.ReadReplicaRoutingDataSource.onPrimary;
+import static com.abnamro.recipe.service.TransactionCallbacks.afterCommit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.abnamro.recipe.config.DatabaseAttributes;
 import com.abnamro.recipe.config.MessageProvider;
+import com.abnamro.recipe.config.ValidationConfig;
 import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.entity.Recipe;
 import com.abnamro.recipe.exception.NotFoundException;
+import com.abnamro.recipe.pagination.PageCursor;
 import com.abnamro.recipe.repository.RecipeRepository;
+import com.abnamro.recipe.repository.RecipeRow;
+import com.abnamro.recipe.repository.RecipeSearchRow;
+import com.abnamro.recipe.response.BulkItemResponse;
+import com.abnamro.recipe.response.CursorPageResponse;
+import com.abnamro.recipe.response.FacetedResponse;
+import com.abnamro.recipe.response.RecipeResponse;
 import com.abnamro.recipe.response.RecipeSearchResponse;
+import com.abnamro.recipe.response.SimilarRecipeResponse;
+import com.abnamro.recipe.search.cache.SearchResultCache;
+import com.abnamro.recipe.search.index.FacetedPage;
+import com.abnamro.recipe.search.index.IndexedRecipe;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+import com.abnamro.recipe.search.plan.SearchPlan;
+import com.abnamro.recipe.search.plan.SearchPlanner;
 import com.abnamro.recipe.search.request.RecipeSearchReq;
 import com.abnamro.recipe.search.request.RecipeSpecification;
+import com.abnamro.recipe.validator.BulkRequestValidator;
 import com.abnamro.request.CreateRecipeRequest;
 import com.abnamro.request.UpdateRecipeRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import jakarta.persistence.EntityManager;
 
 @Service
 @Transactional
@@ -27,13 +69,42 @@ public class RecipeService {
 	private final RecipeRepository recipeRepository;
 	private final IngredientService ingredientService;
 	private final MessageProvider messageProvider;
+	private final RecipeSearchIndex searchIndex;
+	private final BulkRequestValidator bulkRequestValidator;
+	private final EntityManager entityManager;
+	private final Cache<Integer, RecipeResponse> recipeCache;
+	private final SearchResultCache searchCache;
+	private final SearchPlanner searchPlanner;
+	private final RecipeFacetService facetService;
+	private final boolean secondLevelCache;
 
 	@Autowired
 	public RecipeService(RecipeRepository recipeRepository, IngredientService ingredientService,
-			MessageProvider messageProvider) {
+			MessageProvider messageProvider, RecipeSearchIndex searchIndex, BulkRequestValidator bulkRequestValidator,
+			EntityManager entityManager, Cache<Integer, RecipeResponse> recipeCache, SearchResultCache searchCache,
+			SearchPlanner searchPlanner, RecipeFacetService facetService,
+			@Value("${spring.jpa.properties.hibernate.cache.use_second_level_cache:false}") boolean secondLevelCache) {
 		this.recipeRepository = recipeRepository;
 		this.ingredientService = ingredientService;
 		this.messageProvider = messageProvider;
+		this.searchIndex = searchIndex;
+		this.bulkRequestValidator = bulkRequestValidator;
+		this.entityManager = entityManager;
+		this.recipeCache = recipeCache;
+		this.searchCache = searchCache;
+		this.searchPlanner = searchPlanner;
+		this.facetService = facetService;
+		this.secondLevelCache = secondLevelCache;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional(readOnly = true)
+	public void buildSearchIndex() {
+		if (!searchIndex.isEnabled()) {
+			return;
+		}
+		searchIndex.rebuild(recipeRepository.findAllWithIngredients().stream().map(IndexedRecipe::of).toList());
+		searchCache.invalidate();
 	}
 
 	public Integer createRecipe(CreateRecipeRequest createRecipeRequest) {
@@ -49,22 +120,182 @@ public class RecipeService {
 
 		Recipe createdRecipe = recipeRepository.save(recipe);
 
+		IndexedRecipe snapshot = IndexedRecipe.of(createdRecipe);
+		afterCommit(() -> {
+			searchIndex.put(snapshot);
+			searchPlanner.recipeAdded(snapshot);
+			searchCache.invalidate();
+		});
+
 		return createdRecipe.getId();
 	}
 
-	public List<Recipe> getRecipeList(int page, int size) {
+	/**
+	 * Creates every valid recipe of the batch. Items are validated up front, all referenced ingredient ids are
+	 * resolved with one query, and the recipes are inserted in JDBC-batch sized chunks, flushing and clearing
+	 * the persistence context per chunk.
+	 */
+	public List<BulkItemResponse> createRecipes(List<CreateRecipeRequest> requests) {
+		Map<Integer, String> errors = validateBatch(requests);
+
+		Set<Integer> ingredientIds = new HashSet<>();
+		for (int i = 0; i < requests.size(); i++) {
+			if (!errors.containsKey(i) && requests.get(i).getIngredientIds() != null) {
+				requests.get(i).getIngredientIds().stream().filter(Objects::nonNull).forEach(ingredientIds::add);
+			}
+		}
+		return storeBatch(requests, errors, ingredientService.findNamesByIds(ingredientIds));
+	}
+
+	/**
+	 * Like {@link #createRecipes(List)}, with the ingredients already resolved by the caller, so the write
+	 * transaction only validates and inserts. Ids missing from the names are rejected as unknown ingredients.
+	 */
+	public List<BulkItemResponse> createRecipes(List<CreateRecipeRequest> requests,
+			Map<Integer, String> ingredientNames) {
+		return storeBatch(requests, validateBatch(requests), ingredientNames);
+	}
+
+	private Map<Integer, String> validateBatch(List<CreateRecipeRequest> requests) {
+		Map<Integer, String> errors = bulkRequestValidator.validate(requests);
+		bulkRequestValidator.rejectDuplicateNames(requests, errors, CreateRecipeRequest::getName,
+				recipeRepository::findExistingNames, "recipe.alreadyExists");
+		return errors;
+	}
+
+	private List<BulkItemResponse> storeBatch(List<CreateRecipeRequest> requests, Map<Integer, String> errors,
+			Map<Integer, String> ingredientNames) {
+		List<Integer> accepted = new ArrayList<>();
+		for (int i = 0; i < requests.size(); i++) {
+			if (errors.containsKey(i)) {
+				continue;
+			}
+			String missingIds = ingredientIdsOf(requests.get(i)).stream()
+					.filter(id -> !ingredientNames.containsKey(id))
+					.map(String::valueOf)
+					.collect(Collectors.joining(", "));
+			if (missingIds.isEmpty()) {
+				accepted.add(i);
+			} else {
+				errors.put(i, messageProvider.getMessage("ingredient.notFoundByIds", List.of(missingIds)));
+			}
+		}
+
+		BulkItemResponse[] results = new BulkItemResponse[requests.size()];
+		errors.forEach((index, message) -> results[index] = BulkItemResponse.rejected(index, message));
+
+		List<IndexedRecipe> snapshots = new ArrayList<>(accepted.size());
+		for (int from = 0; from < accepted.size(); from += DatabaseAttributes.ID_ALLOCATION_SIZE) {
+			List<Integer> chunk = accepted.subList(from,
+					Math.min(from + DatabaseAttributes.ID_ALLOCATION_SIZE, accepted.size()));
+			List<Recipe> recipes = new ArrayList<>(chunk.size());
+			for (Integer index : chunk) {
+				CreateRecipeRequest request = requests.get(index);
+				Recipe recipe = new Recipe();
+				recipe.setName(request.getName());
+				recipe.setInstructions(request.getInstructions());
+				recipe.setType(request.getType());
+				recipe.setNumberOfServings(request.getNumberOfServings());
+				recipe.setRecipeIngredients(ingredientIdsOf(request).stream()
+						.map(id -> entityManager.getReference(Ingredient.class, id))
+						.collect(Collectors.toSet()));
+				recipes.add(recipe);
+			}
+
+			recipeRepository.saveAllAndFlush(recipes);
+			entityManager.clear();
+
+			for (int i = 0; i < chunk.size(); i++) {
+				Recipe recipe = recipes.get(i);
+				CreateRecipeRequest request = requests.get(chunk.get(i));
+				results[chunk.get(i)] = BulkItemResponse.created(chunk.get(i), recipe.getId());
+				Set<Integer> requestIngredientIds = ingredientIdsOf(request);
+				snapshots.add(new IndexedRecipe(recipe.getId(), recipe.getName(), recipe.getType(),
+						recipe.getNumberOfServings(), recipe.getInstructions(),
+						requestIngredientIds.stream().map(ingredientNames::get).collect(Collectors.toSet()),
+						requestIngredientIds));
+			}
+		}
+
+		afterCommit(() -> {
+			snapshots.forEach(searchIndex::put);
+			snapshots.forEach(searchPlanner::recipeAdded);
+			searchCache.invalidate();
+		});
+		return Arrays.asList(results);
+	}
+
+	private static Set<Integer> ingredientIdsOf(CreateRecipeRequest request) {
+		if (request.getIngredientIds() == null) {
+			return Set.of();
+		}
+		return request.getIngredientIds().stream().filter(Objects::nonNull).collect(Collectors.toSet());
+	}
+
+	@Transactional(readOnly = true)
+	public List<RecipeResponse> getRecipeList(int page, int size) {
 		Pageable pageRequest = PageRequest.of(page, size);
-		return recipeRepository.findAll(pageRequest).getContent();
+		List<Integer> ids = recipeRepository.findPageOfIds(pageRequest);
+		return loadResponses(ids);
 	}
 
-	public Recipe getRecipeById(int id) {
-		return recipeRepository.findById(id)
-				.orElseThrow(() -> new NotFoundException(messageProvider.getMessage("recipe.notFound")));
+	@Transactional(readOnly = true)
+	public CursorPageResponse<RecipeResponse> getRecipeListAfter(String after, int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException(messageProvider.getMessage("pageSize.invalid"));
+		}
+		int lastId = after != null ? PageCursor.decode(after, messageProvider.getMessage("cursor.invalid")).getId() : 0;
+		Slice<Integer> ids = recipeRepository.findIdsAfter(lastId, PageRequest.of(0, size));
+
+		List<RecipeResponse> items = loadResponses(ids.getContent());
+		String nextCursor = ids.hasNext() ? PageCursor.of(ids.getContent().get(ids.getNumberOfElements() - 1)).encode()
+				: null;
+		return new CursorPageResponse<>(items, nextCursor);
+	}
+
+	/**
+	 * Hands every recipe with its ingredients, in id order, to the sink. The rows are read through a
+	 * forward-only cursor and only the recipe being assembled is held in memory.
+	 *
+	 * @return the number of exported recipes
+	 */
+	@Transactional(readOnly = true)
+	public long exportRecipes(Consumer<RecipeResponse> sink) {
+		long exported = 0;
+		try (Stream<RecipeRow> rows = recipeRepository.streamAllForExport()) {
+			RecipeResponse current = null;
+			for (Iterator<RecipeRow> it = rows.iterator(); it.hasNext();) {
+				RecipeRow row = it.next();
+				if (current == null || current.getId() != row.getRecipeId()) {
+					if (current != null) {
+						sink.accept(current);
+						exported++;
+					}
+					current = row.toRecipeResponse();
+				}
+				row.addIngredientTo(current);
+			}
+			if (current != null) {
+				sink.accept(current);
+				exported++;
+			}
+		}
+		return exported;
+	}
+
+	/**
+	 * Served from the near-cache; a miss loads the recipe as {@link #loadResponses} does, from the primary: a
+	 * lagging replica would put a stale recipe in the cache.
+	 */
+	@Transactional(readOnly = true)
+	public RecipeResponse getRecipeById(int id) {
+		return recipeCache.get(id, key -> onPrimary(() -> loadResponses(List.of(key))).stream().findFirst()
+				.orElseThrow(() -> new NotFoundException(messageProvider.getMessage("recipe.notFound"))));
 	}
 
 	public void updateRecipe(UpdateRecipeRequest updateRecipeRequest) {
-		Recipe recipe = recipeRepository.findById(updateRecipeRequest.getId())
-				.orElseThrow(() -> new NotFoundException(messageProvider.getMessage("recipe.notFound")));
+		Recipe recipe = findRecipe(updateRecipeRequest.getId());
+		IndexedRecipe previous = IndexedRecipe.of(recipe);
 
 		Set<Ingredient> ingredients = Optional.ofNullable(updateRecipeRequest.getIngredientIds())
 				.map(ingredientService::getIngredientsByIds).orElse(null);
@@ -74,10 +305,82 @@ public class RecipeService {
 		recipe.setNumberOfServings(updateRecipeRequest.getNumberOfServings());
 		recipe.setInstructions(updateRecipeRequest.getInstructions());
 
-		if (Optional.ofNullable(ingredients).isPresent())
-			recipe.setRecipeIngredients(ingredients);
+		if (ingredients != null) {
+			replaceIngredients(recipe, ingredients);
+		}
+
+		Recipe updatedRecipe = recipeRepository.save(recipe);
+		reindexAfterCommit(previous, updatedRecipe);
+	}
+
+	/**
+	 * Links the given ingredients to the recipe, inserting join rows only for those not linked yet.
+	 */
+	public void addIngredients(int recipeId, List<Integer> ingredientIds) {
+		Recipe recipe = findRecipe(recipeId);
+		IndexedRecipe previous = IndexedRecipe.of(recipe);
+		Set<Ingredient> ingredients = ingredientService.getIngredientsByIds(ingredientIds);
+
+		Set<Ingredient> linked = linkedIngredients(recipe);
+		Set<Integer> linkedIds = linked.stream().map(Ingredient::getId).collect(Collectors.toSet());
+		ingredients.stream().filter(ingredient -> !linkedIds.contains(ingredient.getId())).forEach(linked::add);
+
+		reindexAfterCommit(previous, recipe);
+	}
+
+	/**
+	 * Unlinks the given ingredients from the recipe, deleting only their join rows. Ids that are not linked
+	 * are ignored.
+	 */
+	public void removeIngredients(int recipeId, List<Integer> ingredientIds) {
+		Recipe recipe = findRecipe(recipeId);
+		IndexedRecipe previous = IndexedRecipe.of(recipe);
+		Set<Integer> removedIds = new HashSet<>(ingredientIds);
+
+		linkedIngredients(recipe).removeIf(ingredient -> removedIds.contains(ingredient.getId()));
+
+		reindexAfterCommit(previous, recipe);
+	}
+
+	/**
+	 * Brings the linked ingredients in line with the given ones by mutating the managed collection. Replacing
+	 * the collection would make Hibernate delete every join row of the recipe and insert them all again;
+	 * mutating it makes it write just the removed and added rows.
+	 */
+	private void replaceIngredients(Recipe recipe, Set<Ingredient> ingredients) {
+		Set<Integer> targetIds = ingredients.stream().map(Ingredient::getId).collect(Collectors.toSet());
+
+		Set<Ingredient> linked = linkedIngredients(recipe);
+		linked.removeIf(ingredient -> !targetIds.contains(ingredient.getId()));
+
+		Set<Integer> linkedIds = linked.stream().map(Ingredient::getId).collect(Collectors.toSet());
+		ingredients.stream().filter(ingredient -> !linkedIds.contains(ingredient.getId())).forEach(linked::add);
+	}
+
+	private static Set<Ingredient> linkedIngredients(Recipe recipe) {
+		if (recipe.getRecipeIngredients() == null) {
+			recipe.setRecipeIngredients(new HashSet<>());
+		}
+		return recipe.getRecipeIngredients();
+	}
+
+	private Recipe findRecipe(int id) {
+		return recipeRepository.findById(id)
+				.orElseThrow(() -> new NotFoundException(messageProvider.getMessage("recipe.notFound")));
+	}
 
-		recipeRepository.save(recipe);
+	/**
+	 * @param previous the recipe as it was loaded, before the write changed it
+	 */
+	private void reindexAfterCommit(IndexedRecipe previous, Recipe recipe) {
+		IndexedRecipe snapshot = IndexedRecipe.of(recipe);
+		afterCommit(() -> {
+			searchIndex.put(snapshot);
+			searchPlanner.recipeRemoved(previous);
+			searchPlanner.recipeAdded(snapshot);
+			recipeCache.invalidate(snapshot.getId());
+			searchCache.invalidate();
+		});
 	}
 
 	public void deleteRecipe(int id) {
@@ -85,21 +388,268 @@ public class RecipeService {
 			throw new NotFoundException(messageProvider.getMessage("recipe.notFound"));
 		}
 
+		Optional<IndexedRecipe> snapshot = recipeRepository.findById(id).map(IndexedRecipe::of);
 		recipeRepository.deleteById(id);
+		afterCommit(() -> {
+			searchIndex.remove(id);
+			snapshot.ifPresent(searchPlanner::recipeRemoved);
+			recipeCache.invalidate(id);
+			searchCache.invalidate();
+		});
 	}
 
+	/**
+	 * Result pages are cached as id lists and hydrated with one batched query, so a repeated search costs a
+	 * single lookup by id. A page missing from the cache is searched on the primary, as ids read from a lagging
+	 * replica would be cached; a cached page is hydrated on the replica.
+	 */
+	@Transactional(readOnly = true)
 	public List<RecipeSearchResponse> SearchByCriteria(RecipeSearchReq request, Pageable pageable) {
-		return recipeRepository.findAll(RecipeSpecification.build(request), pageable).getContent()																									
-				.stream().map(recipe -> {
-					RecipeSearchResponse r = new RecipeSearchResponse();
-					r.id = recipe.getId();
-					r.name = recipe.getName();
-					r.type = recipe.getType();
-					r.numberOfServings = recipe.getNumberOfServings();
-					r.instructions = recipe.getInstructions();
-					r.ingredients = recipe.getRecipeIngredients().stream().map(Ingredient::getName).toList();
-					return r;
-				}).toList();
+		return hydrate(searchCache.get(request, pageable, () -> onPrimary(() -> searchIds(request, pageable))));
+	}
+
+	/**
+	 * {@link #SearchByCriteria} with the facet counts of all its matches, both from one evaluation of the search:
+	 * the match set of the index, or the same planned criteria on the database. The facets would not stay in step
+	 * with a cached page, so these searches bypass the result cache.
+	 */
+	@Transactional(readOnly = true)
+	public FacetedResponse<List<RecipeSearchResponse>> searchWithFacets(RecipeSearchReq request, Pageable pageable) {
+		if (searchIndex.isReady()) {
+			FacetedPage page = facetService.searchIndex(request, pageable);
+			return new FacetedResponse<>(hydrate(page.ids()), RecipeFacetService.toResponse(page.facets()));
+		}
+		Optional<Specification<Recipe>> specification = plannedSpecification(request);
+		return new FacetedResponse<>(
+				hydrate(specification.map(criteria -> findIds(criteria, pageable)).orElse(List.of())),
+				specification.map(facetService::countFacets).orElseGet(RecipeFacetService::noMatches));
+	}
+
+	/**
+	 * The plan the search is executed with. While the in-memory index answers searches nothing is planned, so
+	 * explaining a search never loads the planner statistics for a plan that would go unused.
+	 */
+	@Transactional(readOnly = true)
+	public SearchPlan explainSearch(RecipeSearchReq request) {
+		return searchIndex.isReady() ? SearchPlan.indexOnly() : searchPlanner.plan(request);
+	}
+
+	/**
+	 * Without the index the database runs the plan of the {@link SearchPlanner}. There are no relevance scores
+	 * there, so a {@link RecipeSearchIndex#RELEVANCE} sort falls back to sorting by name.
+	 */
+	private List<Integer> searchIds(RecipeSearchReq request, Pageable pageable) {
+		if (!searchIndex.isReady()) {
+			return plannedSpecification(request).map(specification -> findIds(specification, pageable))
+					.orElse(List.of());
+		}
+
+		return searchIndex.search(request, pageable);
+	}
+
+	private List<Integer> findIds(Specification<Recipe> specification, Pageable pageable) {
+		Pageable byColumn = pageable.getSort().getOrderFor(RecipeSearchIndex.RELEVANCE) != null
+				? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("name"))
+				: pageable;
+		return recipeRepository.findAll(specification, byColumn).getContent().stream().map(Recipe::getId).toList();
+	}
+
+	/**
+	 * The search criteria as executed by the plan of the {@link SearchPlanner}: an index-first plan resolves the
+	 * recipes of its driving ingredient up front and restricts the criteria to them.
+	 *
+	 * @return empty when the driving ingredient has no recipes, so nothing can match
+	 */
+	private Optional<Specification<Recipe>> plannedSpecification(RecipeSearchReq request) {
+		Specification<Recipe> specification = RecipeSpecification.build(request);
+
+		SearchPlan plan = searchPlanner.plan(request);
+		if (plan.strategy() == SearchPlan.Strategy.INDEX_FIRST) {
+			List<Integer> candidates = recipeRepository.findIdsByIngredientNames(plan.driverIngredients());
+			if (candidates.isEmpty()) {
+				return Optional.empty();
+			}
+			specification = specification.and(RecipeSpecification.idIn(candidates));
+		}
+		return Optional.of(specification);
+	}
+
+	/**
+	 * Recipes that can be cooked from the given ingredients, allowing up to {@code maxMissing} ingredients the
+	 * pantry lacks, fewest missing first and then by name.
+	 */
+	@Transactional(readOnly = true)
+	public List<RecipeSearchResponse> searchPantry(List<Integer> ingredientIds, int maxMissing, Pageable pageable) {
+		if (!searchIndex.isReady()) {
+			return hydrate(recipeRepository.findPantryMatches(ingredientIds, maxMissing, pageable));
+		}
+		return hydrate(searchIndex.searchPantry(ingredientIds, maxMissing, pageable));
+	}
+
+	/**
+	 * Up to {@code limit} recipe names starting with the prefix, ignoring case, shortest first. Served from the
+	 * name trie of the search index, or from a prefix query without it.
+	 */
+	@Transactional(readOnly = true)
+	public List<String> suggestNames(String prefix, int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException(messageProvider.getMessage("pageSize.invalid"));
+		}
+		if (searchIndex.isReady()) {
+			return searchIndex.suggest(prefix, limit);
+		}
+		return recipeRepository.findNamesStartingWith(prefix.toLowerCase(Locale.ROOT), PageRequest.of(0, limit));
+	}
+
+	/**
+	 * Up to {@code limit} recipes with the most similar ingredient sets, best first. Served from the MinHash
+	 * buckets of the search index; without the index every recipe sharing an ingredient is scored exactly.
+	 */
+	@Transactional(readOnly = true)
+	public List<SimilarRecipeResponse> getSimilarRecipes(int id, int limit) {
+		if (limit < 1 || limit > ValidationConfig.MAX_SIMILAR_RECIPES) {
+			throw new IllegalArgumentException(
+					messageProvider.getMessage("similar.limit", List.of(ValidationConfig.MAX_SIMILAR_RECIPES)));
+		}
+		if (searchIndex.isReady()) {
+			return searchIndex.similarTo(id, limit)
+					.orElseThrow(() -> new NotFoundException(messageProvider.getMessage("recipe.notFound")))
+					.stream()
+					.map(similar -> new SimilarRecipeResponse(similar.id(), similar.name(), similar.similarity()))
+					.toList();
+		}
+
+		Set<Integer> ingredientIds = linkedIngredients(findRecipe(id)).stream().map(Ingredient::getId)
+				.collect(Collectors.toSet());
+		if (ingredientIds.isEmpty()) {
+			return List.of();
+		}
+		return recipeRepository.findRecipesSharingIngredients(id, ingredientIds).stream()
+				.map(row -> new SimilarRecipeResponse(row.getRecipeId(), row.getName(), row.jaccard(ingredientIds.size())))
+				.sorted(Comparator.comparingDouble(SimilarRecipeResponse::getSimilarity).reversed()
+						.thenComparingInt(SimilarRecipeResponse::getId))
+				.limit(limit)
+				.toList();
+	}
+
+	@Transactional(readOnly = true)
+	public CursorPageResponse<RecipeSearchResponse> searchByCriteriaAfter(RecipeSearchReq request, String after,
+			int size) {
+		PageCursor cursor = searchCursor(after, size);
+		if (searchIndex.isReady()) {
+			return cursorPage(hydrate(searchIndex.searchAfter(request, cursor, size + 1)), size);
+		}
+		return cursorPage(hydrate(plannedSpecification(request)
+				.map(specification -> findIdsAfter(specification, cursor, size + 1))
+				.orElse(List.of())), size);
+	}
+
+	/**
+	 * {@link #searchByCriteriaAfter} with the facet counts of all its matches, counted as by
+	 * {@link #searchWithFacets}.
+	 */
+	@Transactional(readOnly = true)
+	public FacetedResponse<CursorPageResponse<RecipeSearchResponse>> searchAfterWithFacets(RecipeSearchReq request,
+			String after, int size) {
+		PageCursor cursor = searchCursor(after, size);
+		if (searchIndex.isReady()) {
+			FacetedPage page = facetService.searchIndexAfter(request, cursor, size + 1);
+			return new FacetedResponse<>(cursorPage(hydrate(page.ids()), size),
+					RecipeFacetService.toResponse(page.facets()));
+		}
+		Optional<Specification<Recipe>> specification = plannedSpecification(request);
+		return new FacetedResponse<>(
+				cursorPage(hydrate(specification.map(criteria -> findIdsAfter(criteria, cursor, size + 1))
+						.orElse(List.of())), size),
+				specification.map(facetService::countFacets).orElseGet(RecipeFacetService::noMatches));
+	}
+
+	private PageCursor searchCursor(String after, int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException(messageProvider.getMessage("pageSize.invalid"));
+		}
+		PageCursor cursor = after != null ? PageCursor.decode(after, messageProvider.getMessage("cursor.invalid")) : null;
+		if (cursor != null && cursor.getName() == null) {
+			throw new IllegalArgumentException(messageProvider.getMessage("cursor.invalid"));
+		}
+		return cursor;
+	}
+
+	private List<Integer> findIdsAfter(Specification<Recipe> specification, PageCursor cursor, int limit) {
+		Specification<Recipe> criteria = cursor != null
+				? specification.and(RecipeSpecification.after(cursor))
+				: specification;
+		return recipeRepository.findBy(criteria, query -> query.sortBy(Sort.by("name", "id")).limit(limit).all())
+				.stream().map(Recipe::getId).toList();
+	}
+
+	/**
+	 * The first {@code size} items, with a cursor after the last of them when the items hold one more.
+	 */
+	private static CursorPageResponse<RecipeSearchResponse> cursorPage(List<RecipeSearchResponse> items, int size) {
+		if (items.size() <= size) {
+			return new CursorPageResponse<>(items, null);
+		}
+		List<RecipeSearchResponse> page = items.subList(0, size);
+		RecipeSearchResponse last = page.get(size - 1);
+		return new CursorPageResponse<>(page, new PageCursor(last.id, last.name).encode());
+	}
+
+	/**
+	 * Loads the recipes of the given ids with their ingredients and returns them in the order of the ids,
+	 * skipping ids that no longer exist. With the second-level cache on, see {@link #loadRecipes}; otherwise as
+	 * plain rows in a single query.
+	 */
+	private List<RecipeResponse> loadResponses(List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		if (secondLevelCache) {
+			return loadRecipes(ids).stream().map(RecipeResponse::new).toList();
+		}
+		Map<Integer, RecipeResponse> recipesById = new HashMap<>();
+		for (RecipeRow row : recipeRepository.findRowsByIdIn(ids)) {
+			row.addIngredientTo(recipesById.computeIfAbsent(row.getRecipeId(), id -> row.toRecipeResponse()));
+		}
+		return ids.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+	}
+
+	/**
+	 * Same as {@link #loadResponses} for search results; the row query selects only the columns a result returns.
+	 */
+	private List<RecipeSearchResponse> hydrate(List<Integer> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		if (secondLevelCache) {
+			return loadRecipes(ids).stream().map(RecipeService::toSearchResponse).toList();
+		}
+		Map<Integer, RecipeSearchResponse> recipesById = new HashMap<>();
+		for (RecipeSearchRow row : recipeRepository.findSearchRowsByIdIn(ids)) {
+			row.addIngredientTo(recipesById.computeIfAbsent(row.getRecipeId(), id -> row.toSearchResponse()));
+		}
+		return ids.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+	}
+
+	/**
+	 * Loads the recipe rows alone and takes their ingredient sets from the second-level cache, so a warm read
+	 * never joins the ingredient tables. Sets missing from the cache are loaded with their ingredients, in batches.
+	 */
+	private List<Recipe> loadRecipes(List<Integer> ids) {
+		Map<Integer, Recipe> recipesById = recipeRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(Recipe::getId, Function.identity()));
+		return ids.stream().map(recipesById::get).filter(Objects::nonNull).toList();
+	}
+
+	private static RecipeSearchResponse toSearchResponse(Recipe recipe) {
+		RecipeSearchResponse response = new RecipeSearchResponse();
+		response.id = recipe.getId();
+		response.name = recipe.getName();
+		response.type = recipe.getType();
+		response.numberOfServings = recipe.getNumberOfServings();
+		response.instructions = recipe.getInstructions();
+		response.ingredients = recipe.getRecipeIngredients().stream().map(Ingredient::getName).toList();
+		return response;
 	}
 
 }
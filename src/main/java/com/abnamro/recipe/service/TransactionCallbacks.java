@@ -0,0 +1,27 @@
+package com.abnamro.recipe.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+final class TransactionCallbacks {
+
+	private TransactionCallbacks() {
+	}
+
+	/**
+	 * Runs the action once the surrounding transaction has committed, so in-memory structures never
+	 * observe writes that are rolled back. Runs immediately when no transaction is active.
+	 */
+	static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,101 @@
+package com.abnamro.recipe.validator;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.abnamro.recipe.config.MessageProvider;
+import com.abnamro.recipe.config.ValidationConfig;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Validates every item of a bulk request up front, so one bad item is reported instead of failing the batch.
+ */
+@Component
+public class BulkRequestValidator {
+
+    private final Validator validator;
+
+    private final MessageProvider messageProvider;
+
+    public BulkRequestValidator(Validator validator, MessageProvider messageProvider) {
+        this.validator = validator;
+        this.messageProvider = messageProvider;
+    }
+
+    /**
+     * @return the validation message of every invalid item, keyed by its position in the batch
+     * @throws IllegalArgumentException when the batch is empty or larger than {@link ValidationConfig#MAX_BULK_SIZE}
+     */
+    public <T> Map<Integer, String> validate(List<T> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > ValidationConfig.MAX_BULK_SIZE) {
+            throw new IllegalArgumentException(
+                    messageProvider.getMessage("bulk.size", List.of(ValidationConfig.MAX_BULK_SIZE)));
+        }
+
+        Map<Integer, String> errors = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            T request = requests.get(i);
+            if (request == null) {
+                errors.put(i, messageProvider.getMessage("json.invalidFormat"));
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                errors.put(i, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Rejects items whose name appears earlier in the batch or already exists, so the unique constraint
+     * never aborts the batch. Existing names are looked up with one query for the whole batch. Names are
+     * compared ignoring case, like the case-insensitive collation of the unique constraint.
+     */
+    public <T> void rejectDuplicateNames(List<T> requests, Map<Integer, String> errors, Function<T, String> name,
+                                         Function<Collection<String>, Collection<String>> existingNames,
+                                         String existsMessageCode) {
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (!errors.containsKey(i)) {
+                candidates.add(name.apply(requests.get(i)));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = new HashSet<>();
+        existingNames.apply(candidates).forEach(value -> existing.add(normalize(value)));
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (errors.containsKey(i)) {
+                continue;
+            }
+            String value = normalize(name.apply(requests.get(i)));
+            if (existing.contains(value)) {
+                errors.put(i, messageProvider.getMessage(existsMessageCode));
+            } else if (!seen.add(value)) {
+                errors.put(i, messageProvider.getMessage("bulk.duplicateName"));
+            }
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,40 @@
+package com.abnamro.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.PositiveOrZero;
+import java.util.List;
+
+public class PantrySearchRequest {
+	@NotEmpty(message = "{ingredientIds.notEmpty}")
+	@Schema(description = "The ids of the ingredients at hand", example = "[1, 2, 3]")
+	private List<Integer> ingredientIds;
+
+	@PositiveOrZero(message = "{maxMissing.positiveOrZero}")
+	@Schema(description = "How many ingredients of a recipe may be missing from the pantry", example = "1")
+	private int maxMissing;
+
+	public PantrySearchRequest() {
+	}
+
+	public PantrySearchRequest(List<Integer> ingredientIds, int maxMissing) {
+		this.ingredientIds = ingredientIds;
+		this.maxMissing = maxMissing;
+	}
+
+	public List<Integer> getIngredientIds() {
+		return ingredientIds;
+	}
+
+	public void setIngredientIds(List<Integer> ingredientIds) {
+		this.ingredientIds = ingredientIds;
+	}
+
+	public int getMaxMissing() {
+		return maxMissing;
+	}
+
+	public void setMaxMissing(int maxMissing) {
+		this.maxMissing = maxMissing;
+	}
+}
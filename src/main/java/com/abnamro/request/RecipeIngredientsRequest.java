@@ -0,0 +1,26 @@
+package com.abnamro.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+public class RecipeIngredientsRequest {
+	@NotEmpty(message = "{ingredientIds.notEmpty}")
+	@Schema(description = "The ids of the ingredients", example = "[1, 2]")
+	private List<Integer> ingredientIds;
+
+	public RecipeIngredientsRequest() {
+	}
+
+	public RecipeIngredientsRequest(List<Integer> ingredientIds) {
+		this.ingredientIds = ingredientIds;
+	}
+
+	public List<Integer> getIngredientIds() {
+		return ingredientIds;
+	}
+
+	public void setIngredientIds(List<Integer> ingredientIds) {
+		this.ingredientIds = ingredientIds;
+	}
+}
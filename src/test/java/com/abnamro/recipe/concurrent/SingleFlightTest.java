@@ -0,0 +1,135 @@
+package com.abnamro.recipe.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void test_execute_concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(1, () -> {
+                executions.incrementAndGet();
+                await(release);
+                return "pasta";
+            })));
+        }
+        waitUntilCollapsed(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("pasta");
+        }
+        assertThat(executions).hasValue(1);
+        assertThat(count("recipe.reads.executed")).isEqualTo(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void test_execute_followersReceiveTheLeadersException() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1, () -> {
+            await(release);
+            throw new IllegalStateException("database down");
+        }));
+        waitUntilInFlight(singleFlight);
+        Future<String> follower = executor.submit(() -> singleFlight.execute(1, () -> "not executed"));
+        waitUntilCollapsed(1);
+        release.countDown();
+
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerFailure = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertThat(followerFailure.getCause()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void test_execute_followerRunsItselfAfterTimeout() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> singleFlight.execute(1, () -> {
+            await(release);
+            return "slow";
+        }));
+        waitUntilInFlight(singleFlight);
+
+        assertThat(singleFlight.execute(1, () -> "fast")).isEqualTo("fast");
+        assertThat(count("recipe.reads.collapse.timeouts")).isEqualTo(1);
+        release.countDown();
+    }
+
+    @Test
+    void test_execute_differentKeysRunIndependently() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry);
+
+        assertThat(singleFlight.execute(1, () -> "pasta")).isEqualTo("pasta");
+        assertThat(singleFlight.execute(2, () -> "soup")).isEqualTo("soup");
+        assertThat(count("recipe.reads.executed")).isEqualTo(2);
+        assertThat(count("recipe.reads.collapsed")).isZero();
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).tag("operation", "test").counter().count();
+    }
+
+    private void waitUntilCollapsed(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("recipe.reads.collapsed") < followers && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void waitUntilInFlight(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.inFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
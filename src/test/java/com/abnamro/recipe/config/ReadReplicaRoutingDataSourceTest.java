@@ -0,0 +1,69 @@
+package com.abnamro.recipe.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica; each query reports the database it
+ * ran on.
+ */
+class ReadReplicaRoutingDataSourceTest {
+
+    private static final DataSource PRIMARY = new DriverManagerDataSource("jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1");
+    private static final DataSource REPLICA = new DriverManagerDataSource("jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1");
+    private static final DataSource UNREACHABLE = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/unreachable");
+
+    @Test
+    void test_readOnlyTransaction_usesReplica() {
+        assertThat(databaseOf(routing(REPLICA), true)).isEqualTo("ROUTING_REPLICA");
+    }
+
+    @Test
+    void test_readWriteTransaction_usesPrimary() {
+        assertThat(databaseOf(routing(REPLICA), false)).isEqualTo("ROUTING_PRIMARY");
+    }
+
+    @Test
+    void test_withoutTransaction_usesPrimary() {
+        assertThat(new JdbcTemplate(routing(REPLICA)).queryForObject("select database()", String.class))
+                .isEqualTo("ROUTING_PRIMARY");
+    }
+
+    @Test
+    void test_readOnlyTransaction_onPrimaryUsesPrimary() {
+        DataSource dataSource = routing(REPLICA);
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        String database = transaction.execute(status -> ReadReplicaRoutingDataSource.onPrimary(
+                () -> jdbcTemplate.queryForObject("select database()", String.class)));
+
+        assertThat(database).isEqualTo("ROUTING_PRIMARY");
+        assertThat(databaseOf(dataSource, true)).isEqualTo("ROUTING_REPLICA");
+    }
+
+    @Test
+    void test_readOnlyTransaction_fallsBackToPrimaryWhenReplicaIsDown() {
+        assertThat(databaseOf(routing(UNREACHABLE), true)).isEqualTo("ROUTING_PRIMARY");
+    }
+
+    private static DataSource routing(DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(PRIMARY, replica));
+    }
+
+    private static String databaseOf(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select database()", String.class));
+    }
+}
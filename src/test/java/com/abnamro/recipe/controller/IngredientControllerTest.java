@@ -16,10 +16,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.response.CreateEntityResponse;
 import com.abnamro.recipe.response.IngredientResponse;
 import com.abnamro.recipe.service.IngredientService;
+import com.abnamro.recipe.utils.builder.IngredientModelBuilder;
 import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
 import com.abnamro.request.CreateIngredientRequest;
 
@@ -52,8 +52,8 @@ class IngredientControllerTest {
 
     @Test
     void test_getIngredient_successfully() {
-        Ingredient ingredient = IngredientTestDataBuilder.createIngredient();
-        ingredient.setId(5);
+        IngredientResponse ingredient = new IngredientResponse(
+                new IngredientModelBuilder().withId(5).withName("tomato").build());
 
         when(ingredientService.findById(5)).thenReturn(ingredient);
 
@@ -68,8 +68,9 @@ class IngredientControllerTest {
 
     @Test
     void test_listIngredients_successfully() {
-        List<Ingredient> storedList =
-                IngredientTestDataBuilder.createIngredientList(true);
+        List<IngredientResponse> storedList = IngredientTestDataBuilder.createIngredientList(true).stream()
+                .map(IngredientResponse::new)
+                .toList();
 
         when(ingredientService.list(0, 10)).thenReturn(storedList);
         
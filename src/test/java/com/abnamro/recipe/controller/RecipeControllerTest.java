@@ -17,9 +17,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import com.abnamro.recipe.entity.Recipe;
 import com.abnamro.recipe.response.CreateEntityResponse;
 import com.abnamro.recipe.response.RecipeResponse;
+import com.abnamro.recipe.service.RecipeReadCoalescer;
 import com.abnamro.recipe.service.RecipeService;
 import com.abnamro.request.CreateRecipeRequest;
 import com.abnamro.request.UpdateRecipeRequest;
@@ -30,6 +30,9 @@ class RecipeControllerTest {
     @Mock
     private RecipeService recipeService;
 
+    @Mock
+    private RecipeReadCoalescer recipeReadCoalescer;
+
     @InjectMocks
     private RecipeController recipeController;
 
@@ -49,11 +52,11 @@ class RecipeControllerTest {
 
     @Test
     void test_getRecipe_successfully() {
-        Recipe recipe = new Recipe();
+        RecipeResponse recipe = new RecipeResponse();
         recipe.setId(5);
         recipe.setName("name");
 
-        when(recipeService.getRecipeById(anyInt())).thenReturn(recipe);
+        when(recipeReadCoalescer.getRecipeById(anyInt())).thenReturn(recipe);
 
         ResponseEntity<RecipeResponse> responseEntity = recipeController.getRecipe(5);
 
@@ -66,19 +69,19 @@ class RecipeControllerTest {
 
     @Test
     void test_listRecipes_successfully() {
-        Recipe recipe1 = new Recipe();
+        RecipeResponse recipe1 = new RecipeResponse();
         recipe1.setId(5);
         recipe1.setName("name1");
 
-        Recipe recipe2 = new Recipe();
+        RecipeResponse recipe2 = new RecipeResponse();
         recipe2.setId(6);
         recipe2.setName("name2");
 
-        List<Recipe> storedRecipeList = new ArrayList<>();
+        List<RecipeResponse> storedRecipeList = new ArrayList<>();
         storedRecipeList.add(recipe1);
         storedRecipeList.add(recipe2);
 
-        when(recipeService.getRecipeList(anyInt(), anyInt())).thenReturn(storedRecipeList);
+        when(recipeReadCoalescer.getRecipeList(anyInt(), anyInt())).thenReturn(storedRecipeList);
 
         ResponseEntity<List<RecipeResponse>> responseEntity = recipeController.getRecipeList(0, 10);
 
@@ -0,0 +1,142 @@
+package com.abnamro.recipe.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.abnamro.recipe.config.MessageProvider;
+import com.abnamro.recipe.exception.NotFoundException;
+import com.abnamro.recipe.response.BulkItemResponse;
+import com.abnamro.recipe.service.IngredientService;
+import com.abnamro.recipe.service.RecipeService;
+import com.abnamro.request.CreateRecipeRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeImportServiceTest {
+
+    @Mock
+    private RecipeService recipeService;
+
+    @Mock
+    private IngredientService ingredientService;
+
+    @Mock
+    private MessageProvider messageProvider;
+
+    private RecipeImportService recipeImportService;
+
+    @BeforeEach
+    void setUp() {
+        recipeImportService = new RecipeImportService(recipeService, ingredientService, new ObjectMapper(),
+                messageProvider, 2, 1);
+    }
+
+    @Test
+    void test_importRecipes_storesInBatchesAndCountsEveryOutcome() throws Exception {
+        when(ingredientService.findNamesByIds(anyCollection())).thenReturn(Map.of(1, "Tomato"));
+        when(recipeService.createRecipes(anyList(), anyMap())).thenAnswer(invocation -> {
+            List<CreateRecipeRequest> batch = invocation.getArgument(0);
+            List<BulkItemResponse> results = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                results.add("duplicate".equals(batch.get(i).getName())
+                        ? BulkItemResponse.rejected(i, "exists")
+                        : BulkItemResponse.created(i, i + 1));
+            }
+            return results;
+        });
+        when(messageProvider.getMessage("json.invalidFormat")).thenReturn("invalid");
+
+        String input = String.join("\n",
+                recipe("pasta"),
+                "{not json",
+                "",
+                recipe("duplicate"),
+                recipe("soup"),
+                recipe("salad"));
+
+        ImportProgress progress = recipeImportService.importRecipes(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), "test");
+
+        assertThat(progress.getStatus()).isEqualTo(ImportProgress.Status.COMPLETED);
+        assertThat(progress.getLinesRead()).isEqualTo(5);
+        assertThat(progress.getCreated()).isEqualTo(3);
+        assertThat(progress.getRejected()).isEqualTo(1);
+        assertThat(progress.getMalformed()).isEqualTo(1);
+        assertThat(progress.getErrors()).containsExactly("line 2: invalid", "line 4: exists");
+        verify(ingredientService, times(2)).findNamesByIds(anyCollection());
+        verify(recipeService, times(2)).createRecipes(anyList(), anyMap());
+        assertThat(recipeImportService.getImport(progress.getId())).isSameAs(progress);
+    }
+
+    @Test
+    void test_importRecipes_failsWhenStoringFails() throws Exception {
+        when(recipeService.createRecipes(anyList(), anyMap())).thenThrow(new IllegalStateException("database down"));
+
+        ImportProgress progress = recipeImportService.importRecipes(
+                new ByteArrayInputStream(recipe("pasta").getBytes(StandardCharsets.UTF_8)), "test");
+
+        assertThat(progress.getStatus()).isEqualTo(ImportProgress.Status.FAILED);
+        assertThat(progress.getCreated()).isZero();
+    }
+
+    @Test
+    void test_importRecipes_resumesOnTheLineAfterAMalformedRecord() throws Exception {
+        when(recipeService.createRecipes(anyList(), anyMap())).thenAnswer(invocation -> {
+            List<CreateRecipeRequest> batch = invocation.getArgument(0);
+            List<BulkItemResponse> results = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(BulkItemResponse.created(i, i + 1));
+            }
+            return results;
+        });
+        when(messageProvider.getMessage("json.invalidFormat")).thenReturn("invalid");
+
+        String input = String.join("\n",
+                "{\"name\":\"cut off\",",
+                recipe("pasta"),
+                "{\"name\":\"unterminated",
+                recipe("soup"),
+                "{\"name\":\"trailing\"}}",
+                recipe("salad"),
+                "{\"numberOfServings\":\"two\"}",
+                recipe("stew"));
+
+        ImportProgress progress = recipeImportService.importRecipes(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), "test");
+
+        assertThat(progress.getStatus()).isEqualTo(ImportProgress.Status.COMPLETED);
+        assertThat(progress.getCreated()).isEqualTo(5);
+        assertThat(progress.getErrors()).containsExactly("line 1: invalid", "line 3: invalid", "line 5: invalid",
+                "line 7: invalid");
+    }
+
+    @Test
+    void test_getImport_unknownId() {
+        when(messageProvider.getMessage("import.notFound")).thenReturn("Import not found.");
+
+        assertThrows(NotFoundException.class, () -> recipeImportService.getImport("missing"));
+    }
+
+    private static String recipe(String name) {
+        return "{\"name\":\"" + name + "\",\"type\":\"VEGETARIAN\",\"numberOfServings\":2,"
+                + "\"ingredientIds\":[1],\"instructions\":\"boil\"}";
+    }
+}
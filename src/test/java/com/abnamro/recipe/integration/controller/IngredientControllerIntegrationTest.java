@@ -3,6 +3,7 @@ package com.abnamro.recipe.integration.controller;
 import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.repository.IngredientRepository;
 import com.abnamro.recipe.response.IngredientResponse;
+import com.abnamro.recipe.search.suggest.IngredientSuggestIndex;
 import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
 import com.abnamro.request.CreateIngredientRequest;
 
@@ -14,6 +15,7 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,12 +26,16 @@ class IngredientControllerIntegrationTest extends AbstractControllerIntegrationT
     @Autowired
     private IngredientRepository ingredientRepository;
 
+    @Autowired
+    private IngredientSuggestIndex ingredientSuggestIndex;
+
     @Autowired
     protected MockMvc mockMvc;
 
     @BeforeEach
     void setUp() {
         ingredientRepository.deleteAll();
+        ingredientSuggestIndex.rebuild(Map.of());
     }
 
     // -------------------- CREATE --------------------
@@ -82,6 +88,37 @@ class IngredientControllerIntegrationTest extends AbstractControllerIntegrationT
                 .andExpect(jsonPath("$.message").exists());
     }
 
+    @Test
+    void test_createIngredientsInBulk_partiallyRejected() throws Exception {
+        ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Salt"));
+
+        List<CreateIngredientRequest> requests = List.of(
+                new CreateIngredientRequest("Pepper"),
+                new CreateIngredientRequest(""),
+                new CreateIngredientRequest("Salt"),
+                new CreateIngredientRequest("Pepper"),
+                new CreateIngredientRequest("Basil"));
+
+        performPost("/api/v1/ingredient/bulk", requests)
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").exists())
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[2].status").value("REJECTED"))
+                .andExpect(jsonPath("$[3].status").value("REJECTED"))
+                .andExpect(jsonPath("$[4].status").value("CREATED"));
+
+        assertEquals(3, ingredientRepository.count());
+    }
+
+    @Test
+    void test_createIngredientsInBulk_emptyBatch() throws Exception {
+        performPost("/api/v1/ingredient/bulk", List.of())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
     // -------------------- GET BY ID --------------------
 
     @Test
@@ -138,6 +175,65 @@ class IngredientControllerIntegrationTest extends AbstractControllerIntegrationT
         assertTrue(responses.isEmpty());
     }
 
+    @Test
+    void test_listIngredientsAfterCursor_successfully() throws Exception {
+        ingredientRepository.saveAll(
+                IngredientTestDataBuilder.createIngredientList());
+
+        MvcResult first = performGet("/api/v1/ingredient/size/1")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("tomato"))
+                .andReturn();
+
+        String cursor = readByJsonPath(first, "$.nextCursor");
+
+        performGet("/api/v1/ingredient/size/1?after=" + cursor)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("cabbage"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void test_getIngredientListAfter_invalidSize() throws Exception {
+        performGet("/api/v1/ingredient/size/0")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The page size must be greater than zero."));
+    }
+
+    // -------------------- SUGGEST --------------------
+
+    @Test
+    void test_suggestIngredients_followsCreateAndDelete() throws Exception {
+        MvcResult tomato = performPost("/api/v1/ingredient", new CreateIngredientRequest("Tomato"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        performPost("/api/v1/ingredient/bulk", List.of(
+                new CreateIngredientRequest("Tomato paste"), new CreateIngredientRequest("Onion")))
+                .andExpect(status().isCreated());
+
+        performGet("/api/v1/ingredient/suggest?prefix=TOM")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value("Tomato"))
+                .andExpect(jsonPath("$[1]").value("Tomato paste"));
+
+        Integer tomatoId = readByJsonPath(tomato, "$.id");
+        performDelete("/api/v1/ingredient?id=" + tomatoId)
+                .andExpect(status().isOk());
+
+        performGet("/api/v1/ingredient/suggest?prefix=tom")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value("Tomato paste"));
+    }
+
+    @Test
+    void test_suggestIngredients_invalidLimit() throws Exception {
+        performGet("/api/v1/ingredient/suggest?prefix=to&limit=0")
+                .andExpect(status().isBadRequest());
+    }
+
     // -------------------- DELETE --------------------
 
     @Test
@@ -1,16 +1,20 @@
 package com.abnamro.recipe.integration.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.util.Pair;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.entity.Recipe;
@@ -18,9 +22,14 @@ import com.abnamro.recipe.repository.IngredientRepository;
 import com.abnamro.recipe.repository.RecipeRepository;
 import com.abnamro.recipe.response.RecipeResponse;
 import com.abnamro.recipe.response.RecipeSearchResponse;
+import com.abnamro.recipe.search.cache.SearchResultCache;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+import com.abnamro.recipe.search.plan.SearchPlanner;
 import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
 import com.abnamro.recipe.utils.builder.RecipeTestDataBuilder;
 import com.abnamro.request.CreateRecipeRequest;
+import com.abnamro.request.PantrySearchRequest;
+import com.abnamro.request.RecipeIngredientsRequest;
 import com.abnamro.request.UpdateRecipeRequest;
 
 class RecipeControllerIntegrationTest extends AbstractControllerIntegrationTest {
@@ -31,10 +40,25 @@ class RecipeControllerIntegrationTest extends AbstractControllerIntegrationTest
     @Autowired
     private IngredientRepository ingredientRepository;
 
+    @Autowired
+    private RecipeSearchIndex recipeSearchIndex;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private SearchPlanner searchPlanner;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @BeforeEach
     void setup() {
         recipeRepository.deleteAll();
         ingredientRepository.deleteAll();
+        recipeSearchIndex.rebuild(List.of());
+        searchResultCache.invalidate();
+        searchPlanner.invalidate();
     }
 
     // ---------------- CREATE ----------------
@@ -55,6 +79,64 @@ class RecipeControllerIntegrationTest extends AbstractControllerIntegrationTest
         assertEquals("pasta", optionalRecipe.get().getName());
     }
 
+    @Test
+    void test_createRecipesInBulk_successfully() throws Exception {
+        Ingredient pepper = ingredientRepository.save(
+                IngredientTestDataBuilder.createIngredientWithNameParam("Pepper"));
+
+        List<CreateRecipeRequest> requests = List.of(
+                new CreateRecipeRequest("pasta", "VEGETARIAN", 2, List.of(pepper.getId()), "boil and mix"),
+                new CreateRecipeRequest("soup", "VEGETARIAN", 4, null, "boil"));
+
+        performPost("/api/v1/recipe/bulk", requests)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+
+        assertEquals(2, recipeRepository.count());
+
+        performGet("/api/v1/recipe/search?includeIngredient=pepper")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("pasta"));
+    }
+
+    @Test
+    void test_createRecipesInBulk_unknownIngredientRejected() throws Exception {
+        List<CreateRecipeRequest> requests = List.of(
+                new CreateRecipeRequest("pasta", "VEGETARIAN", 2, List.of(9999), "boil and mix"),
+                new CreateRecipeRequest("soup", "VEGETARIAN", 4, null, "boil"));
+
+        performPost("/api/v1/recipe/bulk", requests)
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$[0].status").value("REJECTED"))
+                .andExpect(jsonPath("$[0].message").exists())
+                .andExpect(jsonPath("$[1].status").value("CREATED"));
+
+        assertEquals(1, recipeRepository.count());
+    }
+
+    @Test
+    void test_createRecipesInBulk_duplicateNamesRejected() throws Exception {
+        recipeRepository.save(RecipeTestDataBuilder.createRecipe());
+        String existingName = recipeRepository.findAll().get(0).getName();
+
+        List<CreateRecipeRequest> requests = List.of(
+                new CreateRecipeRequest(existingName, "VEGETARIAN", 2, null, "boil and mix"),
+                new CreateRecipeRequest("soup", "VEGETARIAN", 4, null, "boil"),
+                new CreateRecipeRequest("SOUP", "VEGETARIAN", 4, null, "boil"));
+
+        performPost("/api/v1/recipe/bulk", requests)
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$[0].status").value("REJECTED"))
+                .andExpect(jsonPath("$[0].message").value("A recipe with the same name already exists."))
+                .andExpect(jsonPath("$[1].status").value("CREATED"))
+                .andExpect(jsonPath("$[2].status").value("REJECTED"))
+                .andExpect(jsonPath("$[2].message").value("The name is used more than once in this request."));
+
+        assertEquals(2, recipeRepository.count());
+    }
+
     // ---------------- GET BY ID ----------------
 
     @Test
@@ -105,6 +187,86 @@ class RecipeControllerIntegrationTest extends AbstractControllerIntegrationTest
         assertEquals("name2", recipes.get(1).getName());
     }
 
+    @Test
+    void test_listRecipeAfterCursor_successfully() throws Exception {
+        for (String name : List.of("name1", "name2", "name3")) {
+            Recipe recipe = new Recipe();
+            recipe.setName(name);
+            recipe.setInstructions("Ins");
+            recipe.setType("OTHER");
+            recipeRepository.save(recipe);
+        }
+
+        MvcResult first = performGet("/api/v1/recipe/size/2")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].name").value("name1"))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn();
+
+        String cursor = readByJsonPath(first, "$.nextCursor");
+
+        performGet("/api/v1/recipe/size/2?after=" + cursor)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("name3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void test_exportRecipes_oneRecipePerLine() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Ingredient tomato = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Tomato"));
+            Ingredient onion = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Onion"));
+
+            Recipe recipe1 = new Recipe();
+            recipe1.setName("name1");
+            recipe1.setInstructions("Ins1");
+            recipe1.setType("OTHER");
+            recipe1.setRecipeIngredients(Set.of(tomato, onion));
+
+            Recipe recipe2 = new Recipe();
+            recipe2.setName("name2");
+            recipe2.setInstructions("Ins2");
+            recipe2.setType("OTHER");
+
+            recipeRepository.saveAll(List.of(recipe1, recipe2));
+        });
+
+        MvcResult started = performGet("/api/v1/recipe/export")
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+
+        RecipeResponse first = objectMapper.readValue(lines[0], RecipeResponse.class);
+        RecipeResponse second = objectMapper.readValue(lines[1], RecipeResponse.class);
+        assertEquals("name1", first.getName());
+        assertEquals(2, first.getIngredients().size());
+        assertEquals("name2", second.getName());
+        assertTrue(second.getIngredients().isEmpty());
+    }
+
+    @Test
+    void test_listRecipeAfterCursor_invalidCursor() throws Exception {
+        performGet("/api/v1/recipe/size/2?after=invalid!")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+
+    @Test
+    void test_listRecipeAfterCursor_invalidSize() throws Exception {
+        performGet("/api/v1/recipe/size/0")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The page size must be greater than zero."));
+    }
+
     // ---------------- UPDATE ----------------
 
     @Test
@@ -129,6 +291,46 @@ class RecipeControllerIntegrationTest extends AbstractControllerIntegrationTest
         assertEquals("add meat", updated.getInstructions());
     }
 
+    @Test
+    void test_addAndRemoveIngredients_successfully() throws Exception {
+        Ingredient tomato = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Tomato"));
+        Ingredient onion = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Onion"));
+
+        Recipe savedRecipe = transactionTemplate.execute(status -> {
+            Recipe recipe = RecipeTestDataBuilder.createRecipe();
+            recipe.setRecipeIngredients(Set.of(ingredientRepository.getReferenceById(tomato.getId())));
+            return recipeRepository.save(recipe);
+        });
+        String path = "/api/v1/recipe/" + savedRecipe.getId();
+
+        performGet(path)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ingredients.length()").value(1));
+
+        performPost(path + "/ingredients", new RecipeIngredientsRequest(List.of(tomato.getId(), onion.getId())))
+                .andExpect(status().isOk());
+
+        performGet(path)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ingredients.length()").value(2));
+
+        performDelete(path + "/ingredients", Pair.of("ingredientIds", String.valueOf(tomato.getId())))
+                .andExpect(status().isOk());
+
+        performGet(path)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ingredients.length()").value(1))
+                .andExpect(jsonPath("$.ingredients[0].name").value("Onion"));
+    }
+
+    @Test
+    void test_addIngredients_unknownIngredient() throws Exception {
+        Recipe savedRecipe = recipeRepository.save(RecipeTestDataBuilder.createRecipe());
+
+        performPost("/api/v1/recipe/" + savedRecipe.getId() + "/ingredients", new RecipeIngredientsRequest(List.of(999999)))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void test_updateRecipe_idIsNull() throws Exception {
         UpdateRecipeRequest request =
@@ -214,4 +416,191 @@ class RecipeControllerIntegrationTest extends AbstractControllerIntegrationTest
 
         assertTrue(responses.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_searchRecipeAfterCursor_successfully() throws Exception {
+        for (String name : List.of("soup", "pasta", "curry")) {
+            performPost("/api/v1/recipe",
+                    new CreateRecipeRequest(name, "VEGETARIAN", 2, null, "boil it"))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult first = performGet("/api/v1/recipe/search/size/2?vegetarian=true")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("curry"))
+                .andExpect(jsonPath("$.items[1].name").value("pasta"))
+                .andReturn();
+
+        String cursor = readByJsonPath(first, "$.nextCursor");
+
+        performGet("/api/v1/recipe/search/size/2?vegetarian=true&after=" + cursor)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("soup"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void test_searchPantry_successfully() throws Exception {
+        Ingredient pepper = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Pepper"));
+        Ingredient rice = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Rice"));
+
+        performPost("/api/v1/recipe", new CreateRecipeRequest("pepper rice", "VEGETARIAN", 2,
+                List.of(pepper.getId(), rice.getId()), "boil it"))
+                .andExpect(status().isCreated());
+        performPost("/api/v1/recipe", new CreateRecipeRequest("plain rice", "VEGETARIAN", 2,
+                List.of(rice.getId()), "boil it"))
+                .andExpect(status().isCreated());
+
+        performPost("/api/v1/recipe/search/pantry", new PantrySearchRequest(List.of(rice.getId()), 0))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("plain rice"));
+
+        performPost("/api/v1/recipe/search/pantry", new PantrySearchRequest(List.of(rice.getId()), 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].name").value("pepper rice"));
+    }
+
+    @Test
+    void test_searchPantry_negativeMaxMissing() throws Exception {
+        performPost("/api/v1/recipe/search/pantry", new PantrySearchRequest(List.of(1), -1))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void test_getSimilarRecipes_successfully() throws Exception {
+        Ingredient pepper = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Pepper"));
+        Ingredient rice = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Rice"));
+        Ingredient salmon = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Salmon"));
+
+        Integer pepperRice = readByJsonPath(performPost("/api/v1/recipe", new CreateRecipeRequest("pepper rice",
+                "VEGETARIAN", 2, List.of(pepper.getId(), rice.getId()), "boil it"))
+                .andExpect(status().isCreated())
+                .andReturn(), "$.id");
+        performPost("/api/v1/recipe", new CreateRecipeRequest("stuffed pepper", "VEGETARIAN", 2,
+                List.of(pepper.getId(), rice.getId()), "bake it"))
+                .andExpect(status().isCreated());
+        performPost("/api/v1/recipe", new CreateRecipeRequest("grilled salmon", "NON_VEGETARIAN", 2,
+                List.of(salmon.getId()), "grill it"))
+                .andExpect(status().isCreated());
+
+        performGet("/api/v1/recipe/" + pepperRice + "/similar")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("stuffed pepper"))
+                .andExpect(jsonPath("$[0].similarity").value(1.0));
+    }
+
+    @Test
+    void test_searchRecipe_byRelevance() throws Exception {
+        performPost("/api/v1/recipe", new CreateRecipeRequest("a roast", "VEGETARIAN", 2, null,
+                "roast the vegetables and add a little garlic"))
+                .andExpect(status().isCreated());
+        performPost("/api/v1/recipe", new CreateRecipeRequest("garlic bread", "VEGETARIAN", 2, null,
+                "rub the garlic on the bread, top with garlic butter"))
+                .andExpect(status().isCreated());
+
+        performGet("/api/v1/recipe/search?instruction=garlic")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("a roast"));
+
+        performGet("/api/v1/recipe/search?instruction=garlic&relevance=true")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].name").value("garlic bread"))
+                .andExpect(jsonPath("$[1].name").value("a roast"));
+    }
+
+    @Test
+    void test_searchRecipe_explainsPlanInHeader() throws Exception {
+        performPost("/api/v1/recipe", new CreateRecipeRequest("soup", "VEGETARIAN", 2, null, "boil it"))
+                .andExpect(status().isCreated());
+
+        performGet("/api/v1/recipe/search?vegetarian=true&explain=true")
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Search-Plan", "source=index"));
+
+        performGet("/api/v1/recipe/search?vegetarian=true")
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Search-Plan"));
+    }
+
+    @Test
+    void test_suggestRecipes_followsCreateAndDelete() throws Exception {
+        for (String name : List.of("pasta bake", "pasta", "pancakes")) {
+            performPost("/api/v1/recipe", new CreateRecipeRequest(name, "VEGETARIAN", 2, null, "cook it"))
+                    .andExpect(status().isCreated());
+        }
+
+        performGet("/api/v1/recipe/suggest?prefix=Pa&limit=2")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value("pasta"))
+                .andExpect(jsonPath("$[1]").value("pancakes"));
+
+        Integer pastaId = recipeRepository.findAll().stream()
+                .filter(recipe -> recipe.getName().equals("pasta")).findFirst().orElseThrow().getId();
+        performDelete("/api/v1/recipe", Pair.of("id", String.valueOf(pastaId)))
+                .andExpect(status().isOk());
+
+        performGet("/api/v1/recipe/suggest?prefix=past")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value("pasta bake"));
+    }
+
+    @Test
+    void test_getSimilarRecipes_notFound() throws Exception {
+        performGet("/api/v1/recipe/9999/similar")
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void test_getSimilarRecipes_limitTooLarge() throws Exception {
+        performGet("/api/v1/recipe/1/similar?limit=" + Integer.MAX_VALUE)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("The limit must be between 1 and 100."));
+    }
+
+    @Test
+    void test_searchFacets_successfully() throws Exception {
+        for (String name : List.of("soup", "pasta")) {
+            performPost("/api/v1/recipe", new CreateRecipeRequest(name, "VEGETARIAN", 2, null, "boil it"))
+                    .andExpect(status().isCreated());
+        }
+        performPost("/api/v1/recipe", new CreateRecipeRequest("steak", "NON_VEGETARIAN", 1, null, "fry it"))
+                .andExpect(status().isCreated());
+
+        performGet("/api/v1/recipe/search/facets?instruction=boil")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.types.VEGETARIAN").value(2))
+                .andExpect(jsonPath("$.servings['2']").value(2))
+                .andExpect(jsonPath("$.complete").value(true));
+    }
+
+    @Test
+    void test_searchRecipe_withFacets_countsAllMatchesBesideThePage() throws Exception {
+        for (String name : List.of("soup", "pasta")) {
+            performPost("/api/v1/recipe", new CreateRecipeRequest(name, "VEGETARIAN", 2, null, "boil it"))
+                    .andExpect(status().isCreated());
+        }
+        performPost("/api/v1/recipe", new CreateRecipeRequest("steak", "NON_VEGETARIAN", 1, null, "fry it"))
+                .andExpect(status().isCreated());
+
+        performGet("/api/v1/recipe/search?instruction=boil&size=1&facets=true")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.length()").value(1))
+                .andExpect(jsonPath("$.results[0].name").value("pasta"))
+                .andExpect(jsonPath("$.facets.total").value(2))
+                .andExpect(jsonPath("$.facets.types.VEGETARIAN").value(2));
+
+        performGet("/api/v1/recipe/search/size/1?instruction=boil&facets=true")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.items.length()").value(1))
+                .andExpect(jsonPath("$.results.nextCursor").isNotEmpty())
+                .andExpect(jsonPath("$.facets.total").value(2));
+    }
+}
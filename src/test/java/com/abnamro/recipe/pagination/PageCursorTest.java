@@ -0,0 +1,41 @@
+package com.abnamro.recipe.pagination;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class PageCursorTest {
+
+    @Test
+    void test_encodeDecode_idOnly() {
+        PageCursor cursor = PageCursor.of(42);
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void test_encodeDecode_nameAndId() {
+        PageCursor cursor = new PageCursor(7, "chicken tikka, masala");
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertThat(decoded.getId()).isEqualTo(7);
+        assertThat(decoded.getName()).isEqualTo("chicken tikka, masala");
+    }
+
+    @Test
+    void test_decode_invalidToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("YWJj"));
+    }
+
+    @Test
+    void test_decode_invalidTokenReportedWithGivenMessage() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode("YWJj", "The cursor is invalid."));
+
+        assertThat(exception.getMessage()).isEqualTo("The cursor is invalid.");
+        assertThat(exception.getCause()).isInstanceOf(NumberFormatException.class);
+    }
+}
@@ -4,17 +4,31 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.search.index.IndexedRecipe;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.search.request.RecipeSpecification;
 
 @DataJpaTest
 public class RecipeRepositoryTest {
 	@Autowired
 	private RecipeRepository recipeRepository;
 
+	@Autowired
+	private IngredientRepository ingredientRepository;
+
 	@Test
 	public void test_whenTryToSaveIngredientSuccess() {
 		Recipe entity = new Recipe();
@@ -46,4 +60,186 @@ public class RecipeRepositoryTest {
 		assertFalse(recipeRepository.findAll().isEmpty());
 		assertEquals(2, recipeRepository.findAll().size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void test_whenSearchExcludingIngredients_thenRecipesWithAnyOfThemAreFiltered() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+		Ingredient potato = saveIngredient("Potato");
+
+		recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+		recipeRepository.save(recipe("potato curry", Set.of(potato, onion)));
+		recipeRepository.save(recipe("plain rice", null));
+
+		RecipeSearchReq request = new RecipeSearchReq();
+		request.excludeIngredient = List.of("salmon", "POTATO");
+
+		List<Recipe> result = recipeRepository.findAll(RecipeSpecification.build(request));
+
+		assertEquals(1, result.size());
+		assertEquals("plain rice", result.get(0).getName());
+	}
+
+	@Test
+	public void test_whenSearchIncludingAndExcludingIngredients_thenOnlyMatchingRecipesAreReturned() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+
+		recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+		recipeRepository.save(recipe("onion soup", Set.of(onion)));
+
+		RecipeSearchReq request = new RecipeSearchReq();
+		request.includeIngredient = "onion";
+		request.excludeIngredient = List.of("salmon");
+
+		List<Recipe> result = recipeRepository.findAll(RecipeSpecification.build(request));
+
+		assertEquals(1, result.size());
+		assertEquals("onion soup", result.get(0).getName());
+	}
+
+	@Test
+	public void test_whenSearchIncludingAllIngredients_thenOnlyRecipesWithEveryOneAreReturned() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+		Ingredient garlic = saveIngredient("Garlic");
+
+		recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion, garlic)));
+		recipeRepository.save(recipe("onion soup", Set.of(onion, garlic)));
+
+		RecipeSearchReq request = new RecipeSearchReq();
+		request.includeIngredient = "garlic";
+		request.includeAll = List.of("ONION", "salmon");
+
+		List<Recipe> result = recipeRepository.findAll(RecipeSpecification.build(request));
+
+		assertEquals(1, result.size());
+		assertEquals("grilled salmon", result.get(0).getName());
+	}
+
+	@Test
+	public void test_whenSearchIncludingAnyIngredient_thenEachRecipeIsReturnedOnce() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+		Ingredient potato = saveIngredient("Potato");
+
+		recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+		recipeRepository.save(recipe("potato curry", Set.of(potato)));
+		recipeRepository.save(recipe("plain rice", null));
+
+		RecipeSearchReq request = new RecipeSearchReq();
+		request.includeAny = List.of("salmon", "onion", "potato");
+
+		List<Recipe> result = recipeRepository.findAll(RecipeSpecification.build(request));
+
+		assertEquals(2, result.size());
+	}
+
+	@Test
+	public void test_whenFindAllWithIngredients_thenEachRecipeOnceInIdOrder() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+
+		Recipe first = recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+		Recipe second = recipeRepository.save(recipe("onion soup", Set.of(onion)));
+		Recipe third = recipeRepository.save(recipe("plain rice", null));
+
+		List<Integer> ids = recipeRepository.findAllWithIngredients().stream().map(Recipe::getId).toList();
+
+		assertEquals(List.of(first.getId(), second.getId(), third.getId()), ids);
+	}
+
+	@Test
+	public void test_whenIncludeAnyIsAllBlank_thenIndexAndSpecificationMatchEveryRecipe() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Recipe grilledSalmon = recipeRepository.save(recipe("grilled salmon", Set.of(salmon)));
+		Recipe plainRice = recipeRepository.save(recipe("plain rice", null));
+
+		RecipeSearchReq request = new RecipeSearchReq();
+		request.includeAny = Arrays.asList(null, "", "  ");
+
+		List<Integer> bySpecification = recipeRepository.findAll(RecipeSpecification.build(request)).stream()
+				.map(Recipe::getId).sorted().toList();
+		RecipeSearchIndex searchIndex = new RecipeSearchIndex(true);
+		searchIndex.rebuild(recipeRepository.findAllWithIngredients().stream().map(IndexedRecipe::of).toList());
+		List<Integer> byIndex = searchIndex.search(request, PageRequest.of(0, 10, Sort.by("id")));
+
+		assertEquals(List.of(grilledSalmon.getId(), plainRice.getId()), bySpecification);
+		assertEquals(bySpecification, byIndex);
+	}
+
+	@Test
+	public void test_whenFindPantryMatches_thenFewestMissingComeFirst() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+		Ingredient potato = saveIngredient("Potato");
+
+		Recipe grilledSalmon = recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+		Recipe potatoCurry = recipeRepository.save(recipe("potato curry", Set.of(potato, onion)));
+		recipeRepository.save(recipe("plain rice", null));
+
+		List<Integer> exact = recipeRepository.findPantryMatches(List.of(salmon.getId(), onion.getId()), 0,
+				PageRequest.of(0, 10));
+		List<Integer> oneMissing = recipeRepository.findPantryMatches(List.of(salmon.getId(), onion.getId()), 1,
+				PageRequest.of(0, 10));
+
+		assertEquals(List.of(grilledSalmon.getId()), exact);
+		assertEquals(List.of(grilledSalmon.getId(), potatoCurry.getId()), oneMissing);
+	}
+
+	@Test
+	public void test_whenFindRecipesSharingIngredients_thenSharedCountsAreReturned() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+		Ingredient potato = saveIngredient("Potato");
+
+		Recipe grilledSalmon = recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+		Recipe potatoCurry = recipeRepository.save(recipe("potato curry", Set.of(potato, onion)));
+		recipeRepository.save(recipe("plain rice", null));
+
+		List<SharedIngredientsRow> rows = recipeRepository.findRecipesSharingIngredients(grilledSalmon.getId(),
+				List.of(salmon.getId(), onion.getId()));
+
+		assertEquals(1, rows.size());
+		assertEquals(potatoCurry.getId(), rows.get(0).getRecipeId());
+		assertEquals(1.0 / 3, rows.get(0).jaccard(2), 1e-9);
+	}
+
+	@Test
+	public void test_whenSearchRestrictedToIdsOfDrivingIngredient_thenSameRecipesAsFullSearch() {
+		Ingredient salmon = saveIngredient("Salmon");
+		Ingredient onion = saveIngredient("Onion");
+		Ingredient saffron = saveIngredient("Saffron");
+
+		Recipe paella = recipeRepository.save(recipe("paella", Set.of(saffron, onion, salmon)));
+		recipeRepository.save(recipe("saffron rice", Set.of(saffron)));
+		recipeRepository.save(recipe("grilled salmon", Set.of(salmon, onion)));
+
+		List<Integer> saffronRecipes = recipeRepository.findIdsByIngredientNames(List.of("saffron"));
+
+		RecipeSearchReq request = new RecipeSearchReq();
+		request.includeAll = List.of("Saffron", "onion");
+
+		List<Recipe> result = recipeRepository.findAll(
+				RecipeSpecification.build(request).and(RecipeSpecification.idIn(saffronRecipes)));
+
+		assertEquals(2, saffronRecipes.size());
+		assertEquals(recipeRepository.findAll(RecipeSpecification.build(request)), result);
+		assertEquals(List.of(paella.getId()), result.stream().map(Recipe::getId).toList());
+	}
+
+	private Ingredient saveIngredient(String name) {
+		Ingredient ingredient = new Ingredient();
+		ingredient.setIngredientName(name);
+		return ingredientRepository.save(ingredient);
+	}
+
+	private static Recipe recipe(String name, Set<Ingredient> ingredients) {
+		Recipe recipe = new Recipe();
+		recipe.setName(name);
+		recipe.setType("VEGETARIAN");
+		recipe.setInstructions("some instructions");
+		recipe.setRecipeIngredients(ingredients);
+		return recipe;
+	}
+}
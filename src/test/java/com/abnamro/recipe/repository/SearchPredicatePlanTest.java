@@ -0,0 +1,111 @@
+package com.abnamro.recipe.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Checks the H2 plans of the SQL shapes produced by {@code RecipeSpecification}, one per search predicate, so
+ * a mapping change that loses an index shows up here.
+ */
+@DataJpaTest
+public class SearchPredicatePlanTest {
+	/**
+	 * Start of the comment H2 prints for an index read with a condition: the index name, a colon and then the
+	 * condition. A full scan prints the index name alone.
+	 */
+	private static final String INDEX_CONDITION = "/\\* PUBLIC\\.\\w+: ";
+
+	@Autowired
+	private RecipeRepository recipeRepository;
+
+	@Autowired
+	private IngredientRepository ingredientRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@BeforeEach
+	public void setUp() {
+		Ingredient tomato = new Ingredient();
+		tomato.setIngredientName("Tomato");
+		ingredientRepository.save(tomato);
+
+		for (int i = 0; i < 20; i++) {
+			Recipe recipe = new Recipe();
+			recipe.setName("recipe " + i);
+			recipe.setType(i % 2 == 0 ? "VEGETARIAN" : "NON_VEGETARIAN");
+			recipe.setNumberOfServings(i % 5 + 1);
+			recipe.setInstructions("boil and serve");
+			recipe.setRecipeIngredients(Set.of(tomato));
+			recipeRepository.save(recipe);
+		}
+		entityManager.flush();
+	}
+
+	@Test
+	public void test_typeFilter_usesTypeServingsNameIndex() {
+		assertThat(explain("select r.id from recipes r where r.type = 'VEGETARIAN' order by r.name"))
+				.contains("IDX_RECIPES_TYPE_SERVINGS_NAME");
+	}
+
+	@Test
+	public void test_typeAndServingsFilter_usesTypeServingsNameIndex() {
+		assertThat(explain("select r.id from recipes r where r.type = 'VEGETARIAN' and r.number_of_servings = 3 "
+				+ "order by r.name"))
+				.contains("IDX_RECIPES_TYPE_SERVINGS_NAME");
+	}
+
+	@Test
+	public void test_includeIngredient_usesNormalizedNameAndJoinTableIndexes() {
+		String plan = explain("select r.id from recipes r join recipe_ingredient ri on ri.recipe_id = r.id "
+				+ "join ingredients i on i.id = ri.ingredient_id where i.normalized_name = 'tomato'");
+
+		assertThat(plan).contains("IDX_INGREDIENTS_NORMALIZED_NAME");
+		assertThat(plan).doesNotContain("tableScan");
+	}
+
+	@Test
+	public void test_excludeIngredient_usesNormalizedNameIndexInAntiJoin() {
+		assertThat(explain("select r.id from recipes r where not exists (select 1 from recipe_ingredient ri "
+				+ "join ingredients i on i.id = ri.ingredient_id where ri.recipe_id = r.id "
+				+ "and i.normalized_name in ('tomato'))"))
+				.contains("IDX_INGREDIENTS_NORMALIZED_NAME");
+	}
+
+	/**
+	 * Both the primary key and the ingredient-first index can serve this lookup; which one H2 picks is up to
+	 * its cost model, so only the index condition is checked.
+	 */
+	@Test
+	public void test_recipesOfIngredient_lookUpIngredientInAnIndex() {
+		assertThat(explain("select ri.recipe_id from recipe_ingredient ri where ri.ingredient_id = 1"))
+				.containsPattern(INDEX_CONDITION + "INGREDIENT_ID = 1");
+	}
+
+	/**
+	 * Substring matches cannot use a B-tree index; these are served by the in-memory search index instead.
+	 * H2 reads either the table or a whole index covering the selected columns, never an index range.
+	 */
+	@Test
+	public void test_instructionAndNameSubstring_scanRecipes() {
+		assertThat(explain("select r.id from recipes r where lower(r.instructions) like '%boil%'"))
+				.doesNotContainPattern(INDEX_CONDITION);
+		assertThat(explain("select r.id from recipes r where lower(r.name) like '%recipe%'"))
+				.doesNotContainPattern(INDEX_CONDITION);
+	}
+
+	private String explain(String sql) {
+		return String.valueOf(entityManager.createNativeQuery("explain " + sql).getSingleResult());
+	}
+}
@@ -0,0 +1,90 @@
+package com.abnamro.recipe.search.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+class SearchResultCacheTest {
+
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10, Sort.by("name"));
+
+    private SearchResultCache searchResultCache;
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setUp() {
+        searchResultCache = new SearchResultCache(Caffeine.newBuilder().build());
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    void test_get_equivalentRequestsShareAnEntry() {
+        RecipeSearchReq first = request("Tomato", List.of("Onion", "garlic"));
+        RecipeSearchReq second = request("tomato", List.of("GARLIC", "onion", "onion"));
+
+        assertThat(search(first, FIRST_PAGE)).containsExactly(1, 2);
+        assertThat(search(second, FIRST_PAGE)).containsExactly(1, 2);
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    void test_get_includeIngredientIsOneOfTheRequiredIngredients() {
+        RecipeSearchReq first = request("Tomato", null);
+        first.includeAll = List.of("onion");
+        RecipeSearchReq second = request(null, null);
+        second.includeAll = List.of("ONION", "tomato");
+
+        search(first, FIRST_PAGE);
+        search(second, FIRST_PAGE);
+
+        assertThat(searches).hasValue(1);
+    }
+
+    @Test
+    void test_get_pagesAreCachedSeparately() {
+        RecipeSearchReq request = request("tomato", null);
+
+        search(request, FIRST_PAGE);
+        search(request, PageRequest.of(1, 10, Sort.by("name")));
+        search(request, PageRequest.of(0, 10, Sort.by("id")));
+
+        assertThat(searches).hasValue(3);
+    }
+
+    @Test
+    void test_invalidate_makesEarlierEntriesUnreachable() {
+        RecipeSearchReq request = request("tomato", null);
+
+        search(request, FIRST_PAGE);
+        searchResultCache.invalidate();
+        search(request, FIRST_PAGE);
+        search(request, FIRST_PAGE);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    private List<Integer> search(RecipeSearchReq request, Pageable pageable) {
+        return searchResultCache.get(request, pageable, () -> {
+            searches.incrementAndGet();
+            return List.of(1, 2);
+        });
+    }
+
+    private static RecipeSearchReq request(String includeIngredient, List<String> excludeIngredient) {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.vegetarian = true;
+        request.includeIngredient = includeIngredient;
+        request.excludeIngredient = excludeIngredient;
+        return request;
+    }
+}
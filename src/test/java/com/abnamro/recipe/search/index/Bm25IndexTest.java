@@ -0,0 +1,118 @@
+package com.abnamro.recipe.search.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class Bm25IndexTest {
+
+    private Bm25Index bm25Index;
+
+    private final BitSet all = new BitSet();
+
+    @BeforeEach
+    void setUp() {
+        bm25Index = new Bm25Index();
+        add(1, "boiled pasta", "boil water, then boil the pasta and boil the sauce");
+        add(2, "egg salad", "boil an egg and chop the salad");
+        add(3, "grilled fish", "grill the fish");
+        add(4, "fish soup", "boil the fish in a very long broth with many other words around it");
+    }
+
+    @Test
+    void test_tokens_splitOnNonAlphanumerics() {
+        assertThat(Bm25Index.tokens("boil water, then 2x boil", null, "pasta"))
+                .containsExactly("boil", "water", "then", "2x", "boil", "pasta");
+    }
+
+    @Test
+    void test_top_ranksByTermFrequency() {
+        assertThat(bm25Index.top(all, Set.of("boil"), 10)).containsExactly(1, 2, 4, 3);
+    }
+
+    @Test
+    void test_top_rareTermsWeighMore() {
+        assertThat(bm25Index.top(all, Set.of("grill", "boil"), 1)).containsExactly(3);
+    }
+
+    @Test
+    void test_top_shorterDocumentsWinOnEqualFrequency() {
+        assertThat(bm25Index.top(all, Set.of("fish"), 2)).containsExactly(3, 4);
+    }
+
+    @Test
+    void test_top_onlyScoresCandidates() {
+        BitSet candidates = new BitSet();
+        candidates.set(2);
+        candidates.set(3);
+
+        assertThat(bm25Index.top(candidates, Set.of("boil"), 10)).containsExactly(2, 3);
+    }
+
+    @Test
+    void test_top_unknownTermsKeepIdOrder() {
+        assertThat(bm25Index.top(all, Set.of("caramel"), 10)).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void test_top_partialTermScoresThroughTokensContainingIt() {
+        assertThat(bm25Index.top(all, Set.of("gril"), 10)).containsExactly(3, 1, 2, 4);
+        assertThat(bm25Index.top(all, Set.of("oil"), 10)).containsExactly(bm25Index.top(all, Set.of("boil"), 10));
+    }
+
+    @Test
+    void test_remove_dropsPostings() {
+        int terms = bm25Index.termCount();
+
+        bm25Index.remove(1, "boiled pasta", "boil water, then boil the pasta and boil the sauce");
+        all.clear(1);
+
+        assertThat(bm25Index.top(all, Set.of("boil"), 10)).containsExactly(2, 4, 3);
+        assertThat(bm25Index.termCount()).isEqualTo(terms - Set.of("boiled", "pasta", "water", "then", "sauce").size());
+    }
+
+    @Test
+    void test_top_boundedHeapMatchesFullRanking() {
+        Random random = new Random(42);
+        String[] words = {"boil", "bake", "fry", "chop", "stir", "pasta", "fish", "rice", "salt", "oven"};
+        bm25Index.clear();
+        all.clear();
+        for (int id = 1; id <= 500; id++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(20); i >= 0; i--) {
+                text.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            add(id, null, text.toString());
+        }
+        Set<String> terms = Set.of("boil", "fish", "oven");
+
+        int[] fullRanking = bm25Index.top(all, terms, all.cardinality());
+        for (int k : new int[] {1, 7, 50}) {
+            assertThat(bm25Index.top(all, terms, k)).containsExactly(Arrays.copyOf(fullRanking, k));
+        }
+    }
+
+    @Test
+    void test_add_outOfIdOrderRanksAsInOrder() {
+        int[] inOrder = bm25Index.top(all, Set.of("boil", "fish"), 10);
+
+        bm25Index.clear();
+        add(4, "fish soup", "boil the fish in a very long broth with many other words around it");
+        add(2, "egg salad", "boil an egg and chop the salad");
+        add(3, "grilled fish", "grill the fish");
+        add(1, "boiled pasta", "boil water, then boil the pasta and boil the sauce");
+
+        assertThat(bm25Index.top(all, Set.of("boil", "fish"), 10)).containsExactly(inOrder);
+    }
+
+    private void add(int id, String name, String instructions) {
+        bm25Index.add(id, name, instructions);
+        all.set(id);
+    }
+}
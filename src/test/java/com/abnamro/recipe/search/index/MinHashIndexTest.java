@@ -0,0 +1,119 @@
+package com.abnamro.recipe.search.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MinHashIndexTest {
+
+    private MinHashIndex minHashIndex;
+
+    @BeforeEach
+    void setUp() {
+        minHashIndex = new MinHashIndex();
+    }
+
+    @Test
+    void test_similarTo_identicalSetsFirst() {
+        minHashIndex.add(1, Set.of(1, 2, 3, 4));
+        minHashIndex.add(2, Set.of(1, 2, 3, 4));
+        minHashIndex.add(3, Set.of(1, 2, 3, 9));
+        minHashIndex.add(4, Set.of(20, 21, 22));
+
+        Map<Integer, Double> similar = minHashIndex.similarTo(1, 10);
+
+        assertThat(similar.keySet()).startsWith(2).doesNotContain(1, 4);
+        assertThat(similar.get(2)).isEqualTo(1.0);
+    }
+
+    @Test
+    void test_similarTo_respectsLimit() {
+        IntStream.rangeClosed(1, 20).forEach(id -> minHashIndex.add(id, Set.of(1, 2, 3)));
+
+        assertThat(minHashIndex.similarTo(1, 5)).hasSize(5);
+    }
+
+    @Test
+    void test_similarTo_recipesWithoutIngredientsHaveNoNeighbours() {
+        minHashIndex.add(1, Set.of());
+        minHashIndex.add(2, Set.of());
+
+        assertThat(minHashIndex.similarTo(1, 10)).isEmpty();
+    }
+
+    @Test
+    void test_remove_dropsRecipeFromBuckets() {
+        minHashIndex.add(1, Set.of(1, 2, 3));
+        minHashIndex.add(2, Set.of(1, 2, 3));
+        minHashIndex.remove(2);
+
+        assertThat(minHashIndex.similarTo(1, 10)).isEmpty();
+    }
+
+    @Test
+    void test_estimate_closeToJaccard() {
+        Set<Integer> first = IntStream.range(0, 40).boxed().collect(Collectors.toSet());
+        Set<Integer> second = IntStream.range(20, 60).boxed().collect(Collectors.toSet());
+
+        double estimate = MinHashIndex.estimate(minHashIndex.signature(first), minHashIndex.signature(second));
+
+        assertThat(estimate).isCloseTo(1.0 / 3, within(0.15));
+    }
+
+    /**
+     * Compares the top ten of the index with a brute force Jaccard ranking over a synthetic catalog. Many
+     * neighbours tie on their exact similarity, so the check is on how similar the returned recipes really are
+     * rather than on which of the tied ones are returned.
+     */
+    @Test
+    void test_similarTo_nearlyAsGoodAsBruteForce() {
+        Random random = new Random(7);
+        Map<Integer, Set<Integer>> catalog = new HashMap<>();
+        for (int id = 1; id <= 2000; id++) {
+            Set<Integer> ingredients = new HashSet<>();
+            int theme = random.nextInt(40) * 10;
+            while (ingredients.size() < 6) {
+                ingredients.add(random.nextInt(4) == 0 ? random.nextInt(400) : theme + random.nextInt(12));
+            }
+            catalog.put(id, ingredients);
+            minHashIndex.add(id, ingredients);
+        }
+
+        double exactTotal = 0;
+        double indexTotal = 0;
+        for (int id = 1; id <= 50; id++) {
+            Set<Integer> ingredients = catalog.get(id);
+            int query = id;
+            exactTotal += catalog.keySet().stream()
+                    .filter(other -> other != query)
+                    .map(other -> jaccard(ingredients, catalog.get(other)))
+                    .sorted(Comparator.reverseOrder())
+                    .limit(10)
+                    .mapToDouble(Double::doubleValue)
+                    .sum();
+            indexTotal += minHashIndex.similarTo(id, 10).keySet().stream()
+                    .mapToDouble(other -> jaccard(ingredients, catalog.get(other)))
+                    .sum();
+        }
+
+        assertThat(indexTotal / exactTotal).isGreaterThan(0.9);
+    }
+
+    private static double jaccard(Set<Integer> first, Set<Integer> second) {
+        Set<Integer> union = new HashSet<>(first);
+        union.addAll(second);
+        long shared = first.stream().filter(second::contains).count();
+        return (double) shared / union.size();
+    }
+}
@@ -0,0 +1,53 @@
+package com.abnamro.recipe.search.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PantryIndexTest {
+
+    private PantryIndex pantryIndex;
+
+    @BeforeEach
+    void setUp() {
+        pantryIndex = new PantryIndex();
+        pantryIndex.add(1, Set.of(10, 11));
+        pantryIndex.add(2, Set.of(10, 12, 13));
+        pantryIndex.add(3, Set.of(14));
+        pantryIndex.add(4, Set.of());
+    }
+
+    @Test
+    void test_match_recipesWhoseIngredientsAreASubset() {
+        assertThat(pantryIndex.match(List.of(10, 11, 12), 0)).isEqualTo(Map.of(1, 0));
+    }
+
+    @Test
+    void test_match_allowsMissingIngredients() {
+        assertThat(pantryIndex.match(List.of(10, 11, 12), 1)).isEqualTo(Map.of(1, 0, 2, 1, 3, 1));
+    }
+
+    @Test
+    void test_match_repeatedPantryIdsCountOnce() {
+        assertThat(pantryIndex.match(List.of(14, 14), 0)).isEqualTo(Map.of(3, 0));
+    }
+
+    @Test
+    void test_match_skipsRecipesWithoutIngredients() {
+        assertThat(pantryIndex.match(List.of(), 0)).isEmpty();
+        assertThat(pantryIndex.match(List.of(99), 5)).isEqualTo(Map.of(1, 2, 2, 3, 3, 1));
+    }
+
+    @Test
+    void test_remove_dropsRecipe() {
+        pantryIndex.remove(1, Set.of(10, 11));
+        pantryIndex.remove(4, Set.of());
+
+        assertThat(pantryIndex.match(List.of(10, 11), 0)).isEmpty();
+    }
+}
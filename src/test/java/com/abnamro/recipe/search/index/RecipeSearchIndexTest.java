@@ -0,0 +1,235 @@
+package com.abnamro.recipe.search.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.abnamro.recipe.pagination.PageCursor;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+
+class RecipeSearchIndexTest {
+
+    private RecipeSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new RecipeSearchIndex(true);
+        searchIndex.rebuild(List.of(
+                new IndexedRecipe(1, "potato curry", "VEGETARIAN", 4, "chop potatoes and onion",
+                        Set.of("potato", "onion")),
+                new IndexedRecipe(2, "baked pasta", "VEGETARIAN", 2, "boil pasta and bake in oven",
+                        Set.of("cheese", "tomato")),
+                new IndexedRecipe(3, "grilled salmon", "NON_VEGETARIAN", 4, "grill salmon in oven",
+                        Set.of("salmon", "onion"))));
+    }
+
+    @Test
+    void test_search_byTypeAndServings() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.vegetarian = true;
+        request.servings = 4;
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(1);
+    }
+
+    @Test
+    void test_search_includeAndExcludeIngredient() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeIngredient = "Onion";
+        request.excludeIngredient = List.of("SALMON");
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(1);
+    }
+
+    @Test
+    void test_search_excludeSeveralIngredients() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.excludeIngredient = List.of("potato", "tomato");
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(3);
+    }
+
+    @Test
+    void test_search_includeAllIngredients() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeAll = List.of("onion", "Potato");
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(1);
+    }
+
+    @Test
+    void test_search_includeAnyIngredient() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeAny = List.of("potato", "TOMATO", "garlic");
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(2, 1);
+    }
+
+    @Test
+    void test_search_includeAllAnyAndExcludeCombined() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeIngredient = "onion";
+        request.includeAny = List.of("potato", "salmon");
+        request.excludeIngredient = List.of("potato");
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(3);
+    }
+
+    @Test
+    void test_search_unknownIngredient_noResult() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeIngredient = "garlic";
+
+        assertThat(searchIndex.search(request, byName(0, 10))).isEmpty();
+    }
+
+    @Test
+    void test_search_instructionIsSortedAndPaged() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.instruction = "Oven";
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(2, 3);
+        assertThat(searchIndex.search(request, byName(1, 1))).containsExactly(3);
+        assertThat(searchIndex.search(request, byName(2, 1))).isEmpty();
+    }
+
+    @Test
+    void test_search_nameSubstringIsCaseInsensitive() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.name = "SALM";
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(3);
+    }
+
+    @Test
+    void test_search_multiWordInstruction() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.instruction = "salmon in oven";
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(3);
+    }
+
+    @Test
+    void test_suggest_followsPutAndRemove() {
+        assertThat(searchIndex.suggest("B", 10)).containsExactly("baked pasta");
+
+        searchIndex.put(new IndexedRecipe(2, "braised pasta", "VEGETARIAN", 2, null, Set.of("tomato")));
+        searchIndex.remove(3);
+
+        assertThat(searchIndex.suggest("ba", 10)).isEmpty();
+        assertThat(searchIndex.suggest("br", 10)).containsExactly("braised pasta");
+        assertThat(searchIndex.suggest("g", 10)).isEmpty();
+        assertThat(searchIndex.suggestNodeCount()).isEqualTo(1 + "potato curry".length() + "braised pasta".length());
+    }
+
+    @Test
+    void test_search_byRelevance() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.instruction = "oven";
+        PageRequest byRelevance = PageRequest.of(0, 10, Sort.by(RecipeSearchIndex.RELEVANCE));
+
+        assertThat(searchIndex.search(request, byRelevance)).containsExactly(3, 2);
+
+        request.instruction = "ove";
+        assertThat(searchIndex.search(request, byRelevance)).containsExactly(3, 2);
+
+        request.name = "salmon";
+        assertThat(searchIndex.search(request, byRelevance)).containsExactly(3);
+        assertThat(searchIndex.search(new RecipeSearchReq(), PageRequest.of(1, 2, Sort.by(RecipeSearchIndex.RELEVANCE))))
+                .containsExactly(1);
+    }
+
+    @Test
+    void test_put_replacesPreviousPostings() {
+        searchIndex.put(new IndexedRecipe(3, "grilled salmon", "NON_VEGETARIAN", 2, "grill salmon",
+                Set.of("salmon")));
+
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeIngredient = "onion";
+
+        assertThat(searchIndex.search(request, byName(0, 10))).containsExactly(1);
+        assertThat(searchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void test_searchPantry_fewestMissingFirst() {
+        searchIndex.rebuild(List.of(
+                new IndexedRecipe(1, "potato curry", "VEGETARIAN", 4, null, Set.of("potato", "onion"), Set.of(1, 2)),
+                new IndexedRecipe(2, "baked pasta", "VEGETARIAN", 2, null, Set.of("cheese", "tomato"), Set.of(3, 4)),
+                new IndexedRecipe(3, "fried onion", "VEGETARIAN", 1, null, Set.of("onion"), Set.of(2))));
+
+        assertThat(searchIndex.searchPantry(List.of(2), 0, PageRequest.of(0, 10))).containsExactly(3);
+        assertThat(searchIndex.searchPantry(List.of(2, 4), 1, PageRequest.of(0, 10))).containsExactly(3, 2, 1);
+        assertThat(searchIndex.searchPantry(List.of(2, 4), 1, PageRequest.of(1, 2))).containsExactly(1);
+    }
+
+    @Test
+    void test_facets_countMatchesOfTheFilter() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.instruction = "oven";
+
+        SearchFacets facets = searchIndex.facets(request, 2, System.nanoTime() + 1_000_000_000L);
+
+        assertThat(facets.total()).isEqualTo(2);
+        assertThat(facets.types()).isEqualTo(Map.of("VEGETARIAN", 1L, "NON_VEGETARIAN", 1L));
+        assertThat(facets.servings()).isEqualTo(Map.of(2, 1L, 4, 1L));
+        assertThat(facets.ingredients()).hasSize(2);
+        assertThat(facets.complete()).isTrue();
+    }
+
+    @Test
+    void test_facets_topIngredientsMostUsedFirst() {
+        SearchFacets facets = searchIndex.facets(new RecipeSearchReq(), 1, System.nanoTime() + 1_000_000_000L);
+
+        assertThat(facets.ingredients()).isEqualTo(Map.of("onion", 2L));
+    }
+
+    @Test
+    void test_facets_budgetExhausted_partialCounts() {
+        SearchFacets facets = searchIndex.facets(new RecipeSearchReq(), 10, System.nanoTime() - 1);
+
+        assertThat(facets.total()).isEqualTo(3);
+        assertThat(facets.types()).isEmpty();
+        assertThat(facets.complete()).isFalse();
+    }
+
+    @Test
+    void test_searchWithFacets_countsAllMatchesBeyondThePage() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.instruction = "oven";
+
+        FacetedPage page = searchIndex.searchWithFacets(request, byName(0, 1), 2,
+                System.nanoTime() + 1_000_000_000L);
+
+        assertThat(page.ids()).containsExactly(2);
+        assertThat(page.facets()).isEqualTo(searchIndex.facets(request, 2, System.nanoTime() + 1_000_000_000L));
+    }
+
+    @Test
+    void test_searchAfterWithFacets_countsAllMatchesBeyondTheCursor() {
+        FacetedPage page = searchIndex.searchAfterWithFacets(new RecipeSearchReq(),
+                new PageCursor(2, "baked pasta"), 10, 10, System.nanoTime() + 1_000_000_000L);
+
+        assertThat(page.ids()).containsExactly(3, 1);
+        assertThat(page.facets().total()).isEqualTo(3);
+    }
+
+    @Test
+    void test_remove_dropsRecipeFromResults() {
+        searchIndex.remove(1);
+
+        assertThat(searchIndex.search(new RecipeSearchReq(), byName(0, 10))).containsExactly(2, 3);
+        assertThat(searchIndex.size()).isEqualTo(2);
+    }
+
+    private static PageRequest byName(int page, int size) {
+        return PageRequest.of(page, size, Sort.by("name").ascending());
+    }
+}
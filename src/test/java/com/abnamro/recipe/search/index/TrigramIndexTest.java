@@ -0,0 +1,67 @@
+package com.abnamro.recipe.search.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+
+    private TrigramIndex trigramIndex;
+
+    @BeforeEach
+    void setUp() {
+        trigramIndex = new TrigramIndex();
+        trigramIndex.add(1, "boil pasta, add cheese and bake in oven");
+        trigramIndex.add(2, "marinate salmon and grill on pan");
+        trigramIndex.add(3, "boil pasta, add vegetables and stir fry");
+    }
+
+    @Test
+    void test_trigrams_ofShortTextAreEmpty() {
+        assertThat(TrigramIndex.trigrams("ab")).isEmpty();
+        assertThat(TrigramIndex.trigrams("oven")).containsExactly("ove", "ven");
+    }
+
+    @Test
+    void test_retainCandidates_substring() {
+        BitSet candidates = all();
+        trigramIndex.retainCandidates(candidates, "ill");
+
+        assertThat(candidates.stream().toArray()).containsExactly(2);
+    }
+
+    @Test
+    void test_retainCandidates_multiWordPhrase() {
+        BitSet candidates = all();
+        trigramIndex.retainCandidates(candidates, "boil pasta");
+
+        assertThat(candidates.stream().toArray()).containsExactly(1, 3);
+    }
+
+    @Test
+    void test_retainCandidates_unknownTrigram_clearsCandidates() {
+        BitSet candidates = all();
+        trigramIndex.retainCandidates(candidates, "xyz");
+
+        assertThat(candidates.isEmpty()).isTrue();
+    }
+
+    @Test
+    void test_remove_dropsPostings() {
+        trigramIndex.remove(2, "marinate salmon and grill on pan");
+
+        BitSet candidates = all();
+        trigramIndex.retainCandidates(candidates, "salmon");
+
+        assertThat(candidates.isEmpty()).isTrue();
+    }
+
+    private static BitSet all() {
+        BitSet candidates = new BitSet();
+        candidates.set(1, 4);
+        return candidates;
+    }
+}
@@ -0,0 +1,157 @@
+package com.abnamro.recipe.search.plan;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.repository.IngredientRepository;
+import com.abnamro.recipe.repository.RecipeRepository;
+import com.abnamro.recipe.search.index.IndexedRecipe;
+import com.abnamro.recipe.search.plan.SearchPlan.Strategy;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+class SearchPlannerTest {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private SearchPlanner searchPlanner;
+
+    @BeforeEach
+    void setUp() {
+        searchPlanner = new SearchPlanner(entityManager, 2, Duration.ofMinutes(5));
+
+        Ingredient tomato = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Tomato"));
+        Ingredient saffron = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Saffron"));
+
+        for (int i = 0; i < 10; i++) {
+            recipeRepository.save(recipe("recipe " + i, i < 6 ? "VEGETARIAN" : "NON_VEGETARIAN", i % 3 + 1,
+                    i == 0 ? Set.of(tomato, saffron) : Set.of(tomato)));
+        }
+    }
+
+    @Test
+    void test_statistics_countPerTypeServingsAndIngredient() {
+        SearchStatistics statistics = searchPlanner.statistics();
+
+        assertThat(statistics.total()).isEqualTo(10);
+        assertThat(statistics.typeCounts()).isEqualTo(Map.of("VEGETARIAN", 6L, "NON_VEGETARIAN", 4L));
+        assertThat(statistics.servingsCounts()).isEqualTo(Map.of(1, 4L, 2, 3L, 3, 3L));
+        assertThat(statistics.ingredientCounts()).isEqualTo(Map.of("tomato", 10L, "saffron", 1L));
+    }
+
+    @Test
+    void test_plan_rareIngredientDrivesIndexFirst() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.vegetarian = true;
+        request.includeAll = List.of("tomato", "SAFFRON");
+
+        SearchPlan plan = searchPlanner.plan(request);
+
+        assertThat(plan.strategy()).isEqualTo(Strategy.INDEX_FIRST);
+        assertThat(plan.driver()).isEqualTo("ingredient:saffron");
+        assertThat(plan.driverIngredients()).containsExactly("saffron");
+        assertThat(plan.estimates()).containsExactly(Map.entry("type:VEGETARIAN", 6L),
+                Map.entry("ingredient:tomato", 10L), Map.entry("ingredient:saffron", 1L));
+        assertThat(plan.estimatedRows()).isEqualTo(1);
+        assertThat(plan.totalRows()).isEqualTo(10);
+    }
+
+    @Test
+    void test_plan_commonIngredientScans() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeAny = List.of("tomato", "saffron");
+
+        SearchPlan plan = searchPlanner.plan(request);
+
+        assertThat(plan.strategy()).isEqualTo(Strategy.SCAN);
+        assertThat(plan.driver()).isNull();
+        assertThat(plan.driverIngredients()).isEmpty();
+        assertThat(plan.estimatedRows()).isEqualTo(10);
+    }
+
+    @Test
+    void test_plan_withoutIngredientsScans() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.servings = 2;
+        request.excludeIngredient = List.of("saffron");
+        request.instruction = "boil";
+
+        SearchPlan plan = searchPlanner.plan(request);
+
+        assertThat(plan.strategy()).isEqualTo(Strategy.SCAN);
+        assertThat(plan.driver()).isNull();
+        assertThat(plan.estimates()).containsExactly(Map.entry("servings:2", 3L),
+                Map.entry("noIngredient:saffron", 9L), Map.entry("instruction:boil", 1L));
+        assertThat(plan.describe()).isEqualTo("source=database; strategy=SCAN; rows=0/10; "
+                + "estimates=servings:2=3,noIngredient:saffron=9,instruction:boil=1");
+    }
+
+    @Test
+    void test_statistics_reloadedOnlyWhenInvalidated() {
+        searchPlanner.statistics();
+        recipeRepository.save(recipe("one more", "VEGETARIAN", 1, null));
+
+        assertThat(searchPlanner.statistics().total()).isEqualTo(10);
+
+        searchPlanner.invalidate();
+        assertThat(searchPlanner.statistics().total()).isEqualTo(11);
+    }
+
+    @Test
+    void test_statistics_countRecordedWritesWithoutReloading() {
+        searchPlanner.statistics();
+        Recipe added = recipeRepository.save(recipe("one more", "VEGETARIAN", 2, null));
+        IndexedRecipe before = new IndexedRecipe(added.getId(), "one more", "VEGETARIAN", 2, "cook it", Set.of());
+        IndexedRecipe after = new IndexedRecipe(added.getId(), "one more", "NON_VEGETARIAN", 2, "cook it",
+                Set.of("Saffron"));
+
+        searchPlanner.recipeAdded(before);
+        searchPlanner.recipeRemoved(before);
+        searchPlanner.recipeAdded(after);
+
+        SearchStatistics statistics = searchPlanner.statistics();
+        assertThat(statistics.total()).isEqualTo(11);
+        assertThat(statistics.typeCounts()).isEqualTo(Map.of("VEGETARIAN", 6L, "NON_VEGETARIAN", 5L));
+        assertThat(statistics.servingsCounts()).isEqualTo(Map.of(1, 4L, 2, 4L, 3, 3L));
+        assertThat(statistics.ingredientCounts()).isEqualTo(Map.of("tomato", 10L, "saffron", 2L));
+
+        searchPlanner.recipeRemoved(after);
+        assertThat(searchPlanner.statistics().ingredientCounts()).isEqualTo(Map.of("tomato", 10L, "saffron", 1L));
+    }
+
+    @Test
+    void test_describe_planServedByIndex() {
+        assertThat(SearchPlan.indexOnly().describe()).isEqualTo("source=index");
+    }
+
+    private static Recipe recipe(String name, String type, int servings, Set<Ingredient> ingredients) {
+        Recipe recipe = new Recipe();
+        recipe.setName(name);
+        recipe.setType(type);
+        recipe.setNumberOfServings(servings);
+        recipe.setInstructions("cook it");
+        recipe.setRecipeIngredients(ingredients);
+        return recipe;
+    }
+}
@@ -0,0 +1,102 @@
+package com.abnamro.recipe.search.suggest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PrefixTrieTest {
+
+    private PrefixTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new PrefixTrie();
+        trie.add("Tomato");
+        trie.add("tomato soup");
+        trie.add("Toast");
+        trie.add("Tofu");
+        trie.add("Onion");
+    }
+
+    @Test
+    void test_suggest_shortestFirstThenAlphabetical() {
+        assertThat(trie.suggest("to", 10)).containsExactly("Tofu", "Toast", "Tomato", "tomato soup");
+    }
+
+    @Test
+    void test_suggest_ignoresCase() {
+        assertThat(trie.suggest("TOM", 10)).containsExactly("Tomato", "tomato soup");
+    }
+
+    @Test
+    void test_suggest_stopsAtLimit() {
+        assertThat(trie.suggest("t", 2)).containsExactly("Tofu", "Toast");
+    }
+
+    @Test
+    void test_suggest_unknownPrefix() {
+        assertThat(trie.suggest("garlic", 10)).isEmpty();
+    }
+
+    @Test
+    void test_suggest_emptyPrefixMatchesEverything() {
+        assertThat(trie.suggest("", 10)).hasSize(5);
+    }
+
+    @Test
+    void test_suggest_namesDifferingOnlyInCase() {
+        trie.add("TOFU");
+
+        assertThat(trie.suggest("tofu", 10)).containsExactly("TOFU", "Tofu");
+        assertThat(trie.size()).isEqualTo(6);
+    }
+
+    @Test
+    void test_add_sameNameTwiceIsKeptOnce() {
+        trie.add("Onion");
+
+        assertThat(trie.suggest("on", 10)).containsExactly("Onion");
+        assertThat(trie.size()).isEqualTo(5);
+    }
+
+    @Test
+    void test_remove_prunesUnusedNodes() {
+        int nodes = trie.nodeCount();
+        long bytes = trie.estimatedBytes();
+
+        trie.remove("tomato soup");
+
+        assertThat(trie.suggest("tom", 10)).containsExactly("Tomato");
+        assertThat(trie.nodeCount()).isEqualTo(nodes - " soup".length());
+        assertThat(trie.estimatedBytes()).isLessThan(bytes);
+        assertThat(trie.size()).isEqualTo(4);
+    }
+
+    @Test
+    void test_remove_keepsNodesOfLongerNames() {
+        int nodes = trie.nodeCount();
+
+        trie.remove("Tomato");
+
+        assertThat(trie.suggest("tom", 10)).containsExactly("tomato soup");
+        assertThat(trie.nodeCount()).isEqualTo(nodes);
+    }
+
+    @Test
+    void test_remove_unknownNameIsIgnored() {
+        trie.remove("Garlic");
+        trie.remove("Tom");
+
+        assertThat(trie.size()).isEqualTo(5);
+    }
+
+    @Test
+    void test_clear() {
+        trie.clear();
+
+        assertThat(trie.suggest("", 10)).isEmpty();
+        assertThat(trie.nodeCount()).isEqualTo(1);
+        assertThat(trie.size()).isZero();
+    }
+}
@@ -4,11 +4,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -19,8 +25,13 @@ import com.abnamro.recipe.config.MessageProvider;
 import com.abnamro.recipe.entity.Ingredient;
 import com.abnamro.recipe.exception.NotFoundException;
 import com.abnamro.recipe.repository.IngredientRepository;
+import com.abnamro.recipe.response.IngredientResponse;
+import com.abnamro.recipe.search.suggest.IngredientSuggestIndex;
+import com.abnamro.recipe.utils.builder.IngredientModelBuilder;
 import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
 import com.abnamro.request.CreateIngredientRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 @ExtendWith(MockitoExtension.class)
 class IngredientServiceTest {
@@ -31,6 +42,12 @@ class IngredientServiceTest {
 	@Mock
 	private MessageProvider messageProvider;
 
+	@Mock
+	private Cache<Integer, IngredientResponse> ingredientCache;
+
+	@Mock
+	private IngredientSuggestIndex suggestIndex;
+
 	@InjectMocks
 	private IngredientService ingredientService;
 
@@ -47,6 +64,7 @@ class IngredientServiceTest {
 
 		assertThat(id).isEqualTo(response.getId());
 		verify(ingredientRepository).save(any(Ingredient.class));
+		verify(suggestIndex).put(response.getId(), response.getName());
 	}
 
 	@Test
@@ -59,6 +77,36 @@ class IngredientServiceTest {
 
 		verify(ingredientRepository).existsById(5);
 		verify(ingredientRepository).deleteById(5);
+		verify(suggestIndex).remove(5);
+	}
+
+	@Test
+	void test_findById_servedFromCacheUntilDeleted() {
+		Cache<Integer, IngredientResponse> cache = Caffeine.newBuilder().build();
+		IngredientService service = new IngredientService(ingredientRepository, messageProvider, null, null, cache, suggestIndex);
+		Ingredient tomato = new IngredientModelBuilder().withId(1).withName("tomato").build();
+
+		when(ingredientRepository.findById(1)).thenReturn(Optional.of(tomato));
+		when(ingredientRepository.existsById(1)).thenReturn(true);
+
+		assertThat(service.findById(1).getName()).isEqualTo("tomato");
+		assertThat(service.findById(1).getName()).isEqualTo("tomato");
+		verify(ingredientRepository, times(1)).findById(1);
+
+		service.delete(1);
+
+		assertThat(cache.getIfPresent(1)).isNull();
+	}
+
+	@Test
+	void test_findById_notFoundIsNotCached() {
+		Cache<Integer, IngredientResponse> cache = Caffeine.newBuilder().build();
+		IngredientService service = new IngredientService(ingredientRepository, messageProvider, null, null, cache, suggestIndex);
+
+		when(ingredientRepository.findById(1)).thenReturn(Optional.empty());
+
+		assertThrows(NotFoundException.class, () -> service.findById(1));
+		assertThat(cache.getIfPresent(1)).isNull();
 	}
 
 	@Test
@@ -70,4 +118,32 @@ class IngredientServiceTest {
 		verify(ingredientRepository).existsById(1);
 		verify(ingredientRepository, never()).deleteById(anyInt());
 	}
-}
\ No newline at end of file
+
+	@Test
+	void test_getIngredientsByIds_resolvesDuplicatesWithOneQuery() {
+		Ingredient tomato = new IngredientModelBuilder().withId(1).withName("tomato").build();
+		Ingredient onion = new IngredientModelBuilder().withId(2).withName("onion").build();
+
+		when(ingredientRepository.findAllById(Set.of(1, 2))).thenReturn(List.of(tomato, onion));
+
+		Set<Ingredient> ingredients = ingredientService.getIngredientsByIds(List.of(1, 2, 1, 2));
+
+		assertThat(ingredients).containsExactlyInAnyOrder(tomato, onion);
+		verify(ingredientRepository).findAllById(Set.of(1, 2));
+		verify(ingredientRepository, never()).findById(anyInt());
+	}
+
+	@Test
+	void test_getIngredientsByIds_reportsAllMissingIds() {
+		Ingredient tomato = new IngredientModelBuilder().withId(1).withName("tomato").build();
+
+		when(ingredientRepository.findAllById(Set.of(1, 3, 4))).thenReturn(List.of(tomato));
+		when(messageProvider.getMessage(eq("ingredient.notFoundByIds"), eq(List.<Object>of("3, 4"))))
+				.thenReturn("Ingredients not found for ids: 3, 4.");
+
+		NotFoundException exception = assertThrows(NotFoundException.class,
+				() -> ingredientService.getIngredientsByIds(List.of(1, 3, 4)));
+
+		assertThat(exception.getMessage()).isEqualTo("Ingredients not found for ids: 3, 4.");
+	}
+}
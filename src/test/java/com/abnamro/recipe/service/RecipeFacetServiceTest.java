@@ -0,0 +1,99 @@
+package com.abnamro.recipe.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.repository.IngredientRepository;
+import com.abnamro.recipe.repository.RecipeRepository;
+import com.abnamro.recipe.response.SearchFacetsResponse;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Covers the database fallback; the index pass is covered by the search index tests.
+ */
+@DataJpaTest
+class RecipeFacetServiceTest {
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private RecipeFacetService recipeFacetService;
+
+    @BeforeEach
+    void setUp() {
+        recipeFacetService = new RecipeFacetService(new RecipeSearchIndex(false), entityManager,
+                Duration.ofSeconds(5), 1);
+
+        Ingredient onion = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Onion"));
+        Ingredient salmon = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Salmon"));
+
+        recipeRepository.save(recipe("onion soup", "VEGETARIAN", 2, Set.of(onion)));
+        recipeRepository.save(recipe("grilled salmon", "NON_VEGETARIAN", 2, Set.of(salmon, onion)));
+        recipeRepository.save(recipe("salmon bake", "NON_VEGETARIAN", 4, Set.of(salmon)));
+    }
+
+    @Test
+    void test_getFacets_countsPerTypeServingsAndTopIngredient() {
+        SearchFacetsResponse facets = recipeFacetService.getFacets(new RecipeSearchReq());
+
+        assertThat(facets.getTotal()).isEqualTo(3);
+        assertThat(facets.getTypes()).isEqualTo(Map.of("VEGETARIAN", 1L, "NON_VEGETARIAN", 2L));
+        assertThat(facets.getServings()).isEqualTo(Map.of(2, 2L, 4, 1L));
+        assertThat(facets.getIngredients()).isEqualTo(Map.of("onion", 2L));
+        assertThat(facets.isComplete()).isTrue();
+    }
+
+    @Test
+    void test_getFacets_onlyCountsMatchesOfTheFilter() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.includeIngredient = "SALMON";
+
+        SearchFacetsResponse facets = recipeFacetService.getFacets(request);
+
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getTypes()).isEqualTo(Map.of("NON_VEGETARIAN", 2L));
+        assertThat(facets.getIngredients()).isEqualTo(Map.of("salmon", 2L));
+    }
+
+    @Test
+    void test_getFacets_spentBudgetSkipsIngredientCounts() {
+        RecipeFacetService withoutBudget = new RecipeFacetService(new RecipeSearchIndex(false), entityManager,
+                Duration.ZERO, 1);
+
+        SearchFacetsResponse facets = withoutBudget.getFacets(new RecipeSearchReq());
+
+        assertThat(facets.getTotal()).isEqualTo(3);
+        assertThat(facets.getIngredients()).isEmpty();
+        assertThat(facets.isComplete()).isFalse();
+    }
+
+    private static Recipe recipe(String name, String type, int servings, Set<Ingredient> ingredients) {
+        Recipe recipe = new Recipe();
+        recipe.setName(name);
+        recipe.setType(type);
+        recipe.setNumberOfServings(servings);
+        recipe.setInstructions("cook it");
+        recipe.setRecipeIngredients(ingredients);
+        return recipe;
+    }
+}
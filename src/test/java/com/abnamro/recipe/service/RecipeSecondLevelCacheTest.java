@@ -0,0 +1,152 @@
+package com.abnamro.recipe.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.repository.IngredientRepository;
+import com.abnamro.recipe.repository.RecipeRepository;
+import com.abnamro.recipe.response.RecipeResponse;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifies that with the second-level cache enabled, as in prod, recipe reads take the ingredient sets from
+ * the cache once warm, so they only select the recipe rows and never join the ingredient tables.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache"
+})
+class RecipeSecondLevelCacheTest {
+
+    private static final String INGREDIENTS_ROLE = Recipe.class.getName() + ".recipeIngredients";
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private Cache<Integer, RecipeResponse> recipeNearCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private int recipeId;
+
+    @BeforeEach
+    void setUp() {
+        recipeId = transactionTemplate.execute(status -> {
+            Ingredient tomato = ingredientRepository.save(
+                    IngredientTestDataBuilder.createIngredientWithNameParam("Tomato"));
+            Ingredient onion = ingredientRepository.save(
+                    IngredientTestDataBuilder.createIngredientWithNameParam("Onion"));
+
+            Recipe recipe = new Recipe();
+            recipe.setName("soup");
+            recipe.setType("VEGETARIAN");
+            recipe.setNumberOfServings(2);
+            recipe.setInstructions("boil and serve");
+            recipe.setRecipeIngredients(Set.of(tomato, onion));
+            return recipeRepository.save(recipe).getId();
+        });
+
+        recipeService.buildSearchIndex();
+
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        sessionFactory.getCache().evictAllRegions();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.deleteAll();
+        ingredientRepository.deleteAll();
+        recipeNearCache.invalidateAll();
+        recipeService.buildSearchIndex();
+    }
+
+    @Test
+    void test_getRecipeById_warmMissSkipsIngredientJoin() {
+        long coldLoad = countStatements(this::loadRecipeResponse);
+        long warmLoad = countStatements(this::loadRecipeResponse);
+
+        assertThat(coldLoad).isEqualTo(2);
+        assertThat(warmLoad).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getCollectionStatistics(INGREDIENTS_ROLE).getCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void test_searchByCriteria_warmPageSkipsIngredientJoin() {
+        long coldLoad = countStatements(this::searchRecipes);
+        long warmLoad = countStatements(this::searchRecipes);
+
+        assertThat(coldLoad).isEqualTo(2);
+        assertThat(warmLoad).isEqualTo(1);
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        assertThat(statistics.getCollectionStatistics(INGREDIENTS_ROLE).getCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void test_loadingRecipeEntity_repeatedLoadsSkipIngredientsTable() {
+        long coldLoad = countStatements(this::loadRecipeEntity);
+        long warmLoad = countStatements(this::loadRecipeEntity);
+
+        assertThat(coldLoad).isEqualTo(2);
+        assertThat(warmLoad).isEqualTo(1);
+        assertThat(statistics.getCollectionStatistics(INGREDIENTS_ROLE).getCacheHitCount()).isEqualTo(1);
+    }
+
+    private void loadRecipeResponse() {
+        assertThat(recipeService.getRecipeById(recipeId).getIngredients()).hasSize(2);
+    }
+
+    private void searchRecipes() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.vegetarian = true;
+        assertThat(recipeService.SearchByCriteria(request, PageRequest.of(0, 10)))
+                .singleElement().satisfies(recipe -> assertThat(recipe.ingredients).hasSize(2));
+    }
+
+    /**
+     * Loads the recipe and its ingredients through the persistence context, as the write paths do.
+     */
+    private void loadRecipeEntity() {
+        transactionTemplate.executeWithoutResult(status ->
+                assertThat(recipeRepository.findById(recipeId).orElseThrow().getRecipeIngredients()).hasSize(2));
+    }
+
+    private long countStatements(Runnable action) {
+        recipeNearCache.invalidateAll();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,162 @@
+package com.abnamro.recipe.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.abnamro.recipe.entity.Ingredient;
+import com.abnamro.recipe.entity.Recipe;
+import com.abnamro.recipe.repository.IngredientRepository;
+import com.abnamro.recipe.repository.RecipeRepository;
+import com.abnamro.recipe.response.RecipeResponse;
+import com.abnamro.recipe.response.RecipeSearchResponse;
+import com.abnamro.recipe.search.request.RecipeSearchReq;
+import com.abnamro.request.UpdateRecipeRequest;
+import com.abnamro.recipe.utils.builder.IngredientTestDataBuilder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Verifies that list and search pages are loaded with a fixed number of statements, independent of the
+ * page size, instead of one extra ingredient query per recipe.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class RecipeServiceQueryCountTest {
+
+    private static final int RECIPE_COUNT = 12;
+
+    @Autowired
+    private RecipeService recipeService;
+
+    @Autowired
+    private IngredientService ingredientService;
+
+    @Autowired
+    private RecipeRepository recipeRepository;
+
+    @Autowired
+    private IngredientRepository ingredientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Statistics statistics;
+
+    private Recipe firstRecipe;
+    private Ingredient onion;
+
+    @BeforeEach
+    void setUp() {
+        // one transaction, so the recipes cascade onto managed ingredients rather than detached ones
+        transactionTemplate.executeWithoutResult(status -> {
+            Ingredient tomato = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Tomato"));
+            onion = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Onion"));
+
+            for (int i = 0; i < RECIPE_COUNT; i++) {
+                Recipe recipe = new Recipe();
+                recipe.setName("recipe " + (char) ('a' + i));
+                recipe.setType("VEGETARIAN");
+                recipe.setNumberOfServings(2);
+                recipe.setInstructions("boil and serve");
+                recipe.setRecipeIngredients(Set.of(tomato, onion));
+                Recipe saved = recipeRepository.save(recipe);
+                if (firstRecipe == null) {
+                    firstRecipe = saved;
+                }
+            }
+        });
+        recipeService.buildSearchIndex();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        recipeRepository.deleteAll();
+        ingredientRepository.deleteAll();
+        recipeService.buildSearchIndex();
+    }
+
+    @Test
+    void test_getRecipeList_statementCountIndependentOfPageSize() {
+        long smallPage = countStatements(() -> assertThat(recipeService.getRecipeList(0, 2)).hasSize(2));
+        long largePage = countStatements(() -> {
+            List<RecipeResponse> recipes = recipeService.getRecipeList(0, RECIPE_COUNT);
+            assertThat(recipes).hasSize(RECIPE_COUNT);
+            assertThat(recipes).allSatisfy(recipe -> assertThat(recipe.getIngredients()).hasSize(2));
+        });
+
+        assertThat(smallPage).isEqualTo(2);
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void test_searchByCriteria_statementCountIndependentOfPageSize() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.vegetarian = true;
+
+        long smallPage = countStatements(() -> assertThat(
+                recipeService.SearchByCriteria(request, PageRequest.of(0, 2, Sort.by("name")))).hasSize(2));
+        long largePage = countStatements(() -> {
+            List<RecipeSearchResponse> recipes =
+                    recipeService.SearchByCriteria(request, PageRequest.of(0, RECIPE_COUNT, Sort.by("name")));
+            assertThat(recipes).hasSize(RECIPE_COUNT);
+            assertThat(recipes).allSatisfy(recipe -> assertThat(recipe.ingredients).hasSize(2));
+        });
+
+        assertThat(smallPage).isEqualTo(1);
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void test_listAndSearchPages_hydrateNoEntities() {
+        RecipeSearchReq request = new RecipeSearchReq();
+        request.vegetarian = true;
+
+        statistics.clear();
+        assertThat(recipeService.getRecipeList(0, RECIPE_COUNT)).hasSize(RECIPE_COUNT);
+        assertThat(recipeService.getRecipeListAfter(null, RECIPE_COUNT).getItems()).hasSize(RECIPE_COUNT);
+        assertThat(recipeService.SearchByCriteria(request, PageRequest.of(0, RECIPE_COUNT, Sort.by("name"))))
+                .hasSize(RECIPE_COUNT);
+        assertThat(ingredientService.list(0, 10)).hasSize(2);
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void test_updateRecipe_writesOnlyTheChangedJoinRows() {
+        Ingredient garlic = ingredientRepository.save(IngredientTestDataBuilder.createIngredientWithNameParam("Garlic"));
+        UpdateRecipeRequest request = new UpdateRecipeRequest(firstRecipe.getId(), firstRecipe.getName(),
+                firstRecipe.getType(), firstRecipe.getNumberOfServings(), List.of(onion.getId(), garlic.getId()),
+                firstRecipe.getInstructions());
+
+        statistics.clear();
+        recipeService.updateRecipe(request);
+
+        assertThat(statistics.getCollectionRecreateCount()).isZero();
+        assertThat(statistics.getCollectionRemoveCount()).isZero();
+        assertThat(statistics.getCollectionUpdateCount()).isEqualTo(1);
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
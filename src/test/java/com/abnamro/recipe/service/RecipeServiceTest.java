@@ -6,14 +6,16 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -21,8 +23,15 @@ import com.abnamro.recipe.config.MessageProvider;
 import com.abnamro.recipe.entity.Recipe;
 import com.abnamro.recipe.exception.NotFoundException;
 import com.abnamro.recipe.repository.RecipeRepository;
+import com.abnamro.recipe.repository.RecipeRow;
+import com.abnamro.recipe.response.RecipeResponse;
+import com.abnamro.recipe.search.cache.SearchResultCache;
+import com.abnamro.recipe.search.index.RecipeSearchIndex;
+import com.abnamro.recipe.search.plan.SearchPlanner;
 import com.abnamro.request.CreateRecipeRequest;
 import com.abnamro.request.UpdateRecipeRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 @ExtendWith(MockitoExtension.class)
 class RecipeServiceTest {
@@ -36,9 +45,29 @@ class RecipeServiceTest {
     @Mock
     private MessageProvider messageProvider;
 
-    @InjectMocks
+    @Mock
+    private RecipeSearchIndex searchIndex;
+
+    @Mock
+    private Cache<Integer, RecipeResponse> recipeCache;
+
+    @Mock
+    private SearchResultCache searchCache;
+
+    @Mock
+    private SearchPlanner searchPlanner;
+
+    @Mock
+    private RecipeFacetService facetService;
+
     private RecipeService recipeService;
 
+    @BeforeEach
+    void setUp() {
+        recipeService = new RecipeService(recipeRepository, ingredientService, messageProvider, searchIndex, null,
+                null, recipeCache, searchCache, searchPlanner, facetService, false);
+    }
+
     @Test
     void test_createRecipe_successfully() {
         CreateRecipeRequest request =
@@ -78,6 +107,31 @@ class RecipeServiceTest {
         verify(recipeRepository).save(any(Recipe.class));
     }
 
+    @Test
+    void test_getRecipeById_servedFromCacheUntilUpdated() {
+        Cache<Integer, RecipeResponse> cache = Caffeine.newBuilder().build();
+        RecipeService service = new RecipeService(recipeRepository, ingredientService, messageProvider, searchIndex,
+                null, null, cache, searchCache, searchPlanner, facetService, false);
+
+        Recipe recipe = new Recipe();
+        recipe.setId(1);
+        recipe.setName("pasta");
+
+        when(recipeRepository.findRowsByIdIn(List.of(1)))
+                .thenReturn(List.of(row(1, "pasta")), List.of(row(1, "pizza")));
+        when(recipeRepository.findById(1)).thenReturn(Optional.of(recipe));
+        when(recipeRepository.save(any(Recipe.class))).thenReturn(recipe);
+
+        assertThat(service.getRecipeById(1).getName()).isEqualTo("pasta");
+        assertThat(service.getRecipeById(1).getName()).isEqualTo("pasta");
+        verify(recipeRepository, times(1)).findRowsByIdIn(List.of(1));
+
+        service.updateRecipe(new UpdateRecipeRequest(1, "pizza", "OTHER", 4, null, "instructions"));
+
+        assertThat(cache.getIfPresent(1)).isNull();
+        assertThat(service.getRecipeById(1).getName()).isEqualTo("pizza");
+    }
+
     @Test
     void test_updateRecipe_notFound() {
         UpdateRecipeRequest request =
@@ -128,4 +182,8 @@ class RecipeServiceTest {
                 recipeService.findBySearchCriteria(request, 0, 10)
         );
     }*/
-}
\ No newline at end of file
+
+    private static RecipeRow row(int id, String name) {
+        return new RecipeRow(id, name, "OTHER", 4, "instructions", null, null, null, null, null, null);
+    }
+}